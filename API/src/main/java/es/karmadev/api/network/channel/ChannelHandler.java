@@ -8,9 +8,22 @@ import es.karmadev.api.network.message.NetMessage;
 public interface ChannelHandler {
 
     /**
-     * Handle the object
+     * Handle the object. The returned value decides
+     * how the message goes on through the rest of the
+     * handlers: null stops it, a message of the same kind
+     * (read only for received messages, writable for messages
+     * being written) replaces it, and anything else lets it go
+     * on unchanged. A message stopped before being written is
+     * not sent.
+     * <p>
+     * A received message is owned by the channel, and so is a
+     * replacement once it is returned: the channel releases it
+     * when a later handler replaces it or the dispatch finishes.
+     * Handlers which keep a received message beyond the call must
+     * retain it, if it is reference counted
      *
      * @param raw the raw object
+     * @return the message to go on with, or null to stop it
      */
     default Object handle(final NetMessage raw) { return raw; }
 }
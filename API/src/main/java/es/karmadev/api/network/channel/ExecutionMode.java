@@ -0,0 +1,26 @@
+package es.karmadev.api.network.channel;
+
+/**
+ * Where the channel handlers receive
+ * the messages
+ */
+public enum ExecutionMode {
+    /**
+     * If this, handlers run on the network thread
+     * which read the message. Handlers must not block,
+     * or every connection of that thread stalls
+     */
+    INLINE,
+    /**
+     * If this, handlers run on a bounded pool
+     * of threads. Messages of the same sender are
+     * still received in order
+     */
+    POOL,
+    /**
+     * If this, handlers run on virtual threads, which
+     * requires Java 21 or newer. Messages of the same
+     * sender are still received in order
+     */
+    VIRTUAL
+}
@@ -0,0 +1,30 @@
+package es.karmadev.api.network.channel;
+
+/**
+ * When the channel sends the written
+ * messages to the network
+ */
+public enum FlushMode {
+    /**
+     * If this, every message is sent as
+     * soon as it is written
+     */
+    IMMEDIATE,
+    /**
+     * If this, the messages written while the network
+     * thread is busy are sent together once it has
+     * finished its current work
+     */
+    END_OF_TICK,
+    /**
+     * If this, the messages are sent every time a
+     * batch of them has been written, and at the end
+     * of the network thread work so none is left behind
+     */
+    BATCHED,
+    /**
+     * If this, the messages are only sent when
+     * the channel is flushed
+     */
+    EXPLICIT
+}
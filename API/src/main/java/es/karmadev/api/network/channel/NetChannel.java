@@ -4,6 +4,8 @@ import es.karmadev.api.network.message.ReadOnlyMessage;
 import es.karmadev.api.network.message.WritableMessage;
 
 import java.security.*;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Future;
 
 /**
@@ -26,7 +28,22 @@ public interface NetChannel {
     void register(final ChannelHandler channel);
 
     /**
-     * Write a message for a specified target
+     * Register a duplex channel for a route. The
+     * channel only receives and emits the messages
+     * of that route
+     *
+     * @param route the route
+     * @param channel the channel
+     */
+    void register(final String route, final ChannelHandler channel);
+
+    /**
+     * Write a message for a specified target. The completion
+     * fails once the message {@link WritableMessage#setTimeout(long, java.util.concurrent.TimeUnit) deadline}
+     * is reached, and cancelling it tells the other side to stop
+     * working on the message. Messages which do not
+     * {@link WritableMessage#isResponseExpected() expect a response}
+     * complete with null once they have been sent
      *
      * @param id the target ID
      * @param message the message to write
@@ -35,13 +52,95 @@ public interface NetChannel {
     Future<ReadOnlyMessage> writeTo(final String id, final WritableMessage message);
 
     /**
-     * Write a message on the channel
+     * Write a message for a specified target, as
+     * {@link #writeTo(String, WritableMessage)} does, deciding
+     * what to do if the outbound queue of the target is full
+     *
+     * @param id the target ID
+     * @param message the message to write
+     * @param mode what to do if the target queue is full
+     * @return the message completion
+     */
+    Future<ReadOnlyMessage> writeTo(final String id, final WritableMessage message, final OverflowMode mode);
+
+    /**
+     * Write a message on the channel. The completion
+     * fails once the message {@link WritableMessage#setTimeout(long, java.util.concurrent.TimeUnit) deadline}
+     * is reached, and cancelling it tells the other side to stop
+     * working on the message
      *
      * @param message the message to write
      * @return the message completion
      */
     Future<ReadOnlyMessage> write(final WritableMessage message);
 
+    /**
+     * Write a message on the channel, as {@link #write(WritableMessage)}
+     * does, deciding what to do if the outbound queue is full
+     *
+     * @param message the message to write
+     * @param mode what to do if the queue is full
+     * @return the message completion
+     */
+    default Future<ReadOnlyMessage> write(final WritableMessage message, final OverflowMode mode) {
+        return writeTo(null, message, mode);
+    }
+
+    /**
+     * Write the messages on the channel. The messages
+     * are written together and sent with a single flush,
+     * whatever the channel flush mode is
+     *
+     * @param messages the messages to write
+     * @return the completion of each message, in the
+     * same order as the messages
+     */
+    List<? extends Future<ReadOnlyMessage>> writeAll(final Collection<? extends WritableMessage> messages);
+
+    /**
+     * Send every message which has been
+     * written but not sent yet
+     */
+    void flush();
+
+    /**
+     * Get if the outbound queue of a peer can take
+     * more writes. Writes over a full queue wait, fail or
+     * are queued anyway depending on their {@link OverflowMode}
+     *
+     * @param peer the peer ID, or null for every peer
+     *             of the channel
+     * @return if the peer can take writes
+     */
+    boolean isWritable(final String peer);
+
+    /**
+     * Add a listener for the outbound queues
+     * of the peers filling up and draining
+     *
+     * @param listener the listener
+     */
+    void addWritabilityListener(final WritabilityListener listener);
+
+    /**
+     * Remove a writability listener
+     *
+     * @param listener the listener
+     */
+    void removeWritabilityListener(final WritabilityListener listener);
+
+    /**
+     * Get if the sender of the message is no
+     * longer waiting for it, either because it has
+     * cancelled it or because its deadline has been
+     * reached. Handlers doing long work can check this
+     * to stop early
+     *
+     * @param message the received message
+     * @return if the message has been cancelled
+     */
+    boolean isCancelled(final ReadOnlyMessage message);
+
     /**
      * Terminate the channel now
      */
@@ -0,0 +1,26 @@
+package es.karmadev.api.network.channel;
+
+/**
+ * What a write does when the outbound
+ * queue of its target is full
+ */
+public enum OverflowMode {
+    /**
+     * If this, the writing thread waits until the
+     * queue drains, or until the message deadline is
+     * reached. Network threads cannot wait, so their
+     * writes are queued anyway
+     */
+    WAIT,
+    /**
+     * If this, the write fails right away with a
+     * {@link es.karmadev.api.network.exception.channel.ChannelFullException}
+     */
+    FAIL,
+    /**
+     * If this, the message is queued past
+     * the limit. Only meant for messages which
+     * must never be refused
+     */
+    QUEUE
+}
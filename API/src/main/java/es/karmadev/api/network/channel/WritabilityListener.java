@@ -0,0 +1,22 @@
+package es.karmadev.api.network.channel;
+
+/**
+ * Listens for the outbound queue of a peer
+ * filling up and draining
+ */
+@FunctionalInterface
+public interface WritabilityListener {
+
+    /**
+     * Called when the outbound queue of a peer goes
+     * over its limit, or drains enough to take writes
+     * again. The listener runs on the thread which changed
+     * the queue, so it must not block
+     *
+     * @param channel the channel the peer is connected to
+     * @param peer the peer ID, or null if the peer has
+     *             not completed its handshake yet
+     * @param writable if the peer can take writes
+     */
+    void writabilityChanged(final NetChannel channel, final String peer, final boolean writable);
+}
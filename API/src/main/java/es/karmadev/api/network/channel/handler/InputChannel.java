@@ -12,7 +12,10 @@ import es.karmadev.api.network.message.ReadOnlyMessage;
 public interface InputChannel extends ChannelHandler {
 
     /**
-     * Receive the network message
+     * Receive the network message. The message
+     * may be backed by the buffer it has been received
+     * in, so it is only guaranteed to be readable during
+     * this call
      *
      * @param channel the channel used as tunnel
      * @param message the message
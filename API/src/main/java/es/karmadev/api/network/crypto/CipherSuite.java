@@ -0,0 +1,132 @@
+package es.karmadev.api.network.crypto;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Authenticated symmetric cipher suite. Implementations
+ * are looked up through {@link CipherSuites} and must be
+ * safe to use from several threads at once
+ */
+public interface CipherSuite {
+
+    /**
+     * Get the suite name, which identifies
+     * the suite on both sides of a channel
+     *
+     * @return the suite name
+     */
+    String name();
+
+    /**
+     * Get the suite key length
+     *
+     * @return the key length in bytes
+     */
+    int keyLength();
+
+    /**
+     * Get the suite nonce length
+     *
+     * @return the nonce length in bytes
+     */
+    int nonceLength();
+
+    /**
+     * Get the length of the authentication
+     * tag appended to sealed data
+     *
+     * @return the tag length in bytes
+     */
+    int tagLength();
+
+    /**
+     * Generate a new random key
+     *
+     * @return the generated key
+     */
+    SecretKey generateKey();
+
+    /**
+     * Create a key from raw key material
+     *
+     * @param material the key material, which must
+     *                 be {@link #keyLength()} long
+     * @return the key
+     */
+    SecretKey createKey(final byte[] material);
+
+    /**
+     * Fill the nonce with random bytes
+     *
+     * @param nonce the nonce to fill
+     */
+    void randomNonce(final byte[] nonce);
+
+    /**
+     * Seal the input into the output
+     *
+     * @param key the key
+     * @param nonce the nonce, which must never be
+     *              used twice with the same key
+     * @param aad the additional data to authenticate, or null
+     * @param input the data to seal
+     * @param output the buffer to write the sealed data to
+     * @return the amount of bytes written
+     * @throws GeneralSecurityException if the data cannot be sealed
+     */
+    int seal(final SecretKey key, final byte[] nonce, final byte[] aad, final ByteBuffer input, final ByteBuffer output) throws GeneralSecurityException;
+
+    /**
+     * Open the sealed input into the output
+     *
+     * @param key the key
+     * @param nonce the nonce the data was sealed with
+     * @param aad the additional data that was authenticated, or null
+     * @param input the sealed data
+     * @param output the buffer to write the opened data to
+     * @return the amount of bytes written
+     * @throws GeneralSecurityException if the data has been tampered with or
+     * cannot be opened
+     */
+    int open(final SecretKey key, final byte[] nonce, final byte[] aad, final ByteBuffer input, final ByteBuffer output) throws GeneralSecurityException;
+
+    /**
+     * Seal the data
+     *
+     * @param key the key
+     * @param nonce the nonce, which must never be
+     *              used twice with the same key
+     * @param aad the additional data to authenticate, or null
+     * @param data the data to seal
+     * @return the sealed data
+     * @throws GeneralSecurityException if the data cannot be sealed
+     */
+    default byte[] seal(final SecretKey key, final byte[] nonce, final byte[] aad, final byte[] data) throws GeneralSecurityException {
+        byte[] output = new byte[data.length + tagLength()];
+        seal(key, nonce, aad, ByteBuffer.wrap(data), ByteBuffer.wrap(output));
+
+        return output;
+    }
+
+    /**
+     * Open the sealed data
+     *
+     * @param key the key
+     * @param nonce the nonce the data was sealed with
+     * @param aad the additional data that was authenticated, or null
+     * @param data the sealed data
+     * @return the opened data
+     * @throws GeneralSecurityException if the data has been tampered with or
+     * cannot be opened
+     */
+    default byte[] open(final SecretKey key, final byte[] nonce, final byte[] aad, final byte[] data) throws GeneralSecurityException {
+        if (data.length < tagLength()) throw new GeneralSecurityException("Sealed data is too short");
+
+        byte[] output = new byte[data.length - tagLength()];
+        open(key, nonce, aad, ByteBuffer.wrap(data), ByteBuffer.wrap(output));
+
+        return output;
+    }
+}
@@ -0,0 +1,56 @@
+package es.karmadev.api.network.crypto;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cipher suite registry. Suites declared as
+ * {@link ServiceLoader services} of {@link CipherSuite}
+ * are registered automatically
+ */
+public final class CipherSuites {
+
+    private final static Map<String, CipherSuite> suites = new ConcurrentHashMap<>();
+
+    static {
+        for (CipherSuite suite : ServiceLoader.load(CipherSuite.class, CipherSuite.class.getClassLoader())) {
+            register(suite);
+        }
+    }
+
+    private CipherSuites() {}
+
+    /**
+     * Register a cipher suite, replacing any
+     * suite with the same name
+     *
+     * @param suite the suite to register
+     */
+    public static void register(final CipherSuite suite) {
+        suites.put(suite.name(), suite);
+    }
+
+    /**
+     * Get a cipher suite
+     *
+     * @param name the suite name
+     * @return the suite, or null if there is no
+     * suite with that name
+     */
+    public static CipherSuite get(final String name) {
+        if (name == null) return null;
+        return suites.get(name);
+    }
+
+    /**
+     * Get the registered suite names
+     *
+     * @return the suite names
+     */
+    public static Collection<String> names() {
+        return Collections.unmodifiableSet(suites.keySet());
+    }
+}
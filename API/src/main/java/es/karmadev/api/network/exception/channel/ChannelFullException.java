@@ -0,0 +1,19 @@
+package es.karmadev.api.network.exception.channel;
+
+/**
+ * This exception is thrown when a message is written with
+ * {@link es.karmadev.api.network.channel.OverflowMode#FAIL} while
+ * the outbound queue of its target is full
+ */
+public class ChannelFullException extends RuntimeException {
+
+    /**
+     * Initialize the exception
+     *
+     * @param peer the target peer ID
+     * @param pending the amount of bytes queued for the peer
+     */
+    public ChannelFullException(final String peer, final long pending) {
+        super("Cannot write to " + (peer == null ? "the channel" : peer) + " because its outbound queue is full with " + pending + " bytes");
+    }
+}
@@ -1,6 +1,7 @@
 package es.karmadev.api.network.message;
 
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Network message representation
@@ -27,4 +28,36 @@ public interface NetMessage extends Serializable {
      * @param status the encryption status
      */
     void setEncryption(final boolean status);
+
+    /**
+     * Get the message route
+     *
+     * @return the message route, or null if the
+     * message has no route
+     */
+    default String route() {
+        return null;
+    }
+
+    /**
+     * Get the time left before the message
+     * expires
+     *
+     * @param unit the unit to get the time in
+     * @return the time left, or {@link Long#MAX_VALUE} if
+     * the message has no deadline
+     */
+    default long timeLeft(final TimeUnit unit) {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Get if the message deadline has
+     * been reached
+     *
+     * @return if the message has expired
+     */
+    default boolean isExpired() {
+        return timeLeft(TimeUnit.NANOSECONDS) <= 0;
+    }
 }
@@ -1,5 +1,7 @@
 package es.karmadev.api.network.message;
 
+import java.nio.ByteBuffer;
+
 /**
  * Read only message
  */
@@ -12,6 +14,62 @@ public interface ReadOnlyMessage extends NetMessage {
      */
     Number readNumber();
 
+    /**
+     * Read the next number as an int, converting
+     * it as {@link Number#intValue()} does
+     *
+     * @return the next number
+     */
+    default int readInt() {
+        return readNumber().intValue();
+    }
+
+    /**
+     * Read the next number as a long
+     *
+     * @return the next number
+     */
+    default long readLong() {
+        return readNumber().longValue();
+    }
+
+    /**
+     * Read the next number as a float
+     *
+     * @return the next number
+     */
+    default float readFloat() {
+        return readNumber().floatValue();
+    }
+
+    /**
+     * Read the next number as a double
+     *
+     * @return the next number
+     */
+    default double readDouble() {
+        return readNumber().doubleValue();
+    }
+
+    /**
+     * Read the next number as a boolean
+     *
+     * @return if the next number is not zero
+     */
+    default boolean readBoolean() {
+        return readNumber().doubleValue() != 0;
+    }
+
+    /**
+     * Read the next number written with
+     * {@link WritableMessage#writeVarInt(int)}
+     *
+     * @return the next number
+     */
+    default int readVarInt() {
+        return readNumber().intValue();
+    }
+
     /**
      * Read the next character from the message
      *
@@ -22,7 +80,8 @@ public interface ReadOnlyMessage extends NetMessage {
     /**
      * Read the next UTF sequence from the message
      *
-     * @return the next UTF sequence
+     * @return the next UTF sequence, or null if
+     * there are no more sequences
      */
     String readUTF();
 
@@ -48,6 +107,25 @@ public interface ReadOnlyMessage extends NetMessage {
      */
     void read(final byte[] output);
 
+    /**
+     * Read the next byte sequence. Implementations
+     * may return a view of the message data instead of
+     * a copy, which is only valid while the message is
+     * being received
+     *
+     * @return a read only view of the next byte sequence, or
+     * null if the sequence is null or there are no more sequences
+     */
+    default ByteBuffer readBuffer() {
+        int length = nextByteLength();
+        if (length < 0) return null;
+
+        byte[] data = new byte[length];
+        read(data);
+
+        return ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
     /**
      * Build the read only message into a
      * byte array, so it can be sent into
@@ -1,6 +1,7 @@
 package es.karmadev.api.network.message;
 
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Writable only message
@@ -15,6 +16,66 @@ public interface WritableMessage extends NetMessage {
      */
     void writeNumber(final Number number);
 
+    /**
+     * Write an int into the message. Primitive
+     * values share the numbers of the message, so they
+     * are read back in the same order as any number
+     *
+     * @param value the value to write
+     */
+    default void writeInt(final int value) {
+        writeNumber(value);
+    }
+
+    /**
+     * Write a long into the message
+     *
+     * @param value the value to write
+     */
+    default void writeLong(final long value) {
+        writeNumber(value);
+    }
+
+    /**
+     * Write a float into the message
+     *
+     * @param value the value to write
+     */
+    default void writeFloat(final float value) {
+        writeNumber(value);
+    }
+
+    /**
+     * Write a double into the message
+     *
+     * @param value the value to write
+     */
+    default void writeDouble(final double value) {
+        writeNumber(value);
+    }
+
+    /**
+     * Write a boolean into the message, as
+     * a one byte number
+     *
+     * @param value the value to write
+     */
+    default void writeBoolean(final boolean value) {
+        writeNumber((byte) (value ? 1 : 0));
+    }
+
+    /**
+     * Write an int into the message as a variable
+     * length integer. Non-negative values up to 127 take
+     * a single byte, but negative values take five, so it
+     * suits sizes and counts better than {@link #writeInt(int)}
+     *
+     * @param value the value to write
+     */
+    default void writeVarInt(final int value) {
+        writeNumber(value);
+    }
+
     /**
      * Write a character into the message
      *
@@ -53,6 +114,44 @@ public interface WritableMessage extends NetMessage {
      */
     void writeKey(final String key, final String value);
 
+    /**
+     * Set the time the message is valid for. The
+     * deadline travels with the message, so the receiver
+     * drops it once expired, and responses inherit it
+     *
+     * @param timeout the message time to live
+     * @param unit the timeout unit
+     */
+    void setTimeout(final long timeout, final TimeUnit unit);
+
+    /**
+     * Set the route the message is dispatched to. The
+     * receiver only passes routed messages to the handlers
+     * registered for the route, falling back to the catch-all
+     * handlers when none is registered
+     *
+     * @param route the message route, or null to
+     *              reach the catch-all handlers
+     */
+    void setRoute(final String route);
+
+    /**
+     * Set if the message expects a response. A message
+     * which expects none is not waited for, so its write
+     * completes once it has been sent. Responses never
+     * expect one
+     *
+     * @param expected if the message expects a response
+     */
+    void setResponseExpected(final boolean expected);
+
+    /**
+     * Get if the message expects a response
+     *
+     * @return if the message expects a response
+     */
+    boolean isResponseExpected();
+
     /**
      * Build the writable message into a
      * byte array
@@ -0,0 +1,19 @@
+package es.karmadev.network.channel;
+
+/**
+ * How a {@link NettyChannelPool} picks the
+ * connection each write goes through
+ */
+public enum BalanceMode {
+    /**
+     * If this, the connections take
+     * the writes in turns
+     */
+    ROUND_ROBIN,
+    /**
+     * If this, each write goes through the
+     * connection with the least requests waiting
+     * for their response
+     */
+    LEAST_LOADED
+}
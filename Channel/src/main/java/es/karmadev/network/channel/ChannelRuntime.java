@@ -0,0 +1,204 @@
+package es.karmadev.network.channel;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.PromiseCombiner;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The threads and resources the channels run on. Any
+ * amount of server and client channels can share a runtime,
+ * so creating a channel does not create threads, and the process
+ * thread count does not grow with the amount of channels.
+ * <p>
+ * The {@link #shared() shared} runtime starts its event loops with
+ * the first channel which uses them and stops them once the last
+ * one terminates. Runtimes created with {@link #create(Transport, int)}
+ * keep their event loops until they are {@link #shutdown() shut down}
+ */
+public final class ChannelRuntime {
+
+    private final Transport transport;
+    private final int workerThreads;
+    private final boolean shared;
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    private final Timer timer = new HashedWheelTimer(new DefaultThreadFactory("securechanneling-timer", true), 10, TimeUnit.MILLISECONDS);
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private int channels;
+    private boolean terminated;
+
+    private ChannelRuntime(final Transport transport, final int workerThreads, final boolean shared) {
+        if (workerThreads < 0) throw new IllegalArgumentException("Worker thread count cannot be negative");
+
+        this.transport = transport;
+        this.workerThreads = workerThreads;
+        this.shared = shared;
+    }
+
+    /**
+     * Get the process wide runtime, used by the
+     * channels created without a runtime
+     *
+     * @return the shared runtime
+     */
+    public static ChannelRuntime shared() {
+        return Shared.runtime;
+    }
+
+    /**
+     * Create a runtime on the best transport
+     * available, with the netty default amount of
+     * worker threads
+     *
+     * @return the runtime
+     */
+    public static ChannelRuntime create() {
+        return create(Transport.best(), 0);
+    }
+
+    /**
+     * Create a runtime
+     *
+     * @param transport the network transport
+     * @param workerThreads the amount of worker threads, or
+     *                      zero for the netty default
+     * @return the runtime
+     * @throws IllegalStateException if the transport is not available
+     */
+    public static ChannelRuntime create(final Transport transport, final int workerThreads) {
+        if (!transport.isAvailable()) throw new IllegalStateException("Transport " + transport.name() + " is not available on this system");
+        return new ChannelRuntime(transport, workerThreads, false);
+    }
+
+    /**
+     * Get the runtime network transport
+     *
+     * @return the transport
+     */
+    public Transport transport() {
+        return transport;
+    }
+
+    /**
+     * Get the allocator the channel
+     * buffers are taken from
+     *
+     * @return the buffer allocator
+     */
+    public ByteBufAllocator allocator() {
+        return allocator;
+    }
+
+    /**
+     * Get the timer used for the channel
+     * timeouts
+     *
+     * @return the runtime timer
+     */
+    public Timer timer() {
+        return timer;
+    }
+
+    /**
+     * Get the amount of channels using
+     * the runtime event loops
+     *
+     * @return the channel count
+     */
+    public synchronized int getChannelCount() {
+        return channels;
+    }
+
+    /**
+     * Start using the runtime event loops,
+     * starting them if needed
+     *
+     * @throws IllegalStateException if the runtime has been shut down
+     */
+    synchronized void acquire() {
+        if (terminated) throw new IllegalStateException("Channel runtime has been shut down");
+        if (bossGroup == null) {
+            bossGroup = transport.newGroup(1);
+            workerGroup = transport.newGroup(workerThreads);
+        }
+
+        channels++;
+    }
+
+    /**
+     * Stop using the runtime event loops. The
+     * shared runtime stops them once no channel
+     * uses them
+     */
+    synchronized void release() {
+        if (channels == 0) return;
+        if (--channels == 0 && shared) stopGroups();
+    }
+
+    /**
+     * Get the group accepting the
+     * server connections
+     *
+     * @return the boss group
+     */
+    synchronized EventLoopGroup bossGroup() {
+        return bossGroup;
+    }
+
+    /**
+     * Get the group handling the
+     * connections
+     *
+     * @return the worker group
+     */
+    synchronized EventLoopGroup workerGroup() {
+        return workerGroup;
+    }
+
+    /**
+     * Shut the runtime down, closing every
+     * channel which is still using it
+     *
+     * @return the shutdown task
+     * @throws IllegalStateException if this is the shared runtime
+     */
+    public synchronized Future<Void> shutdown() {
+        if (shared) throw new IllegalStateException("The shared channel runtime cannot be shut down");
+
+        terminated = true;
+        timer.stop();
+
+        return stopGroups();
+    }
+
+    private Future<Void> stopGroups() {
+        PromiseCombiner combiner = new PromiseCombiner(ImmediateEventExecutor.INSTANCE);
+        if (bossGroup != null) {
+            combiner.add(bossGroup.shutdownGracefully());
+            combiner.add(workerGroup.shutdownGracefully());
+        }
+
+        bossGroup = null;
+        workerGroup = null;
+
+        Promise<Void> done = ImmediateEventExecutor.INSTANCE.newPromise();
+        combiner.finish(done);
+
+        return done;
+    }
+
+    private static class Shared {
+
+        private final static ChannelRuntime runtime = new ChannelRuntime(Transport.best(), 0, true);
+    }
+}
@@ -0,0 +1,150 @@
+package es.karmadev.network.channel;
+
+import es.karmadev.api.network.channel.ChannelHandler;
+import es.karmadev.api.network.channel.NetChannel;
+import es.karmadev.api.network.channel.handler.InputChannel;
+import es.karmadev.api.network.channel.handler.OutputChannel;
+import es.karmadev.api.network.message.NetMessage;
+import es.karmadev.api.network.message.ReadOnlyMessage;
+import es.karmadev.api.network.message.WritableMessage;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, pre-resolved chain of channel handlers. Registering
+ * a handler creates a new chain, so dispatching a message never
+ * copies or locks anything, and what each handler takes part in is
+ * resolved once instead of being checked for every message.
+ * <p>
+ * The value returned by {@link ChannelHandler#handle(NetMessage)} decides
+ * how the message goes on: null stops it, a message of the same kind
+ * replaces it for the rest of the chain, and anything else lets it go
+ * on unchanged. A received replacement is released once another one
+ * takes its place or the chain finishes
+ */
+final class HandlerChain {
+
+    /**
+     * The chain without handlers
+     */
+    final static HandlerChain EMPTY = new HandlerChain(new Link[0]);
+
+    private final Link[] links;
+
+    private HandlerChain(final Link[] links) {
+        this.links = links;
+    }
+
+    /**
+     * Create a chain with the handler
+     * appended
+     *
+     * @param handler the handler to append
+     * @return the new chain
+     */
+    HandlerChain with(final ChannelHandler handler) {
+        Link[] extended = Arrays.copyOf(links, links.length + 1);
+        extended[links.length] = new Link(handler);
+
+        return new HandlerChain(extended);
+    }
+
+    /**
+     * Get the chain handlers
+     *
+     * @return the handlers
+     */
+    List<ChannelHandler> handlers() {
+        ChannelHandler[] handlers = new ChannelHandler[links.length];
+        for (int i = 0; i < links.length; i++) handlers[i] = links[i].handler;
+
+        return Collections.unmodifiableList(Arrays.asList(handlers));
+    }
+
+    /**
+     * Dispatch a received message through
+     * the chain. The dispatch stops once the message
+     * is filtered or its sender cancels it
+     *
+     * @param channel the channel the message was received on
+     * @param message the received message
+     */
+    void receive(final NetChannel channel, final ReadOnlyMessage message) {
+        ReadOnlyMessage current = message;
+        try {
+            for (Link link : links) {
+                if (link.filter) {
+                    Object result = link.handler.handle(current);
+                    if (result == null) return;
+                    if (result instanceof ReadOnlyMessage && result != current) {
+                        //The replaced message was handed out by a previous handler
+                        if (current != message) ReferenceCountUtil.release(current);
+                        current = (ReadOnlyMessage) result;
+                    }
+
+                    current.resetPointers();
+                }
+
+                if (link.input != null) {
+                    if (channel.isCancelled(current)) return;
+
+                    link.input.receive(channel, current);
+                    current.resetPointers();
+                }
+            }
+        } finally {
+            //The received message belongs to the caller, replacements belong to the chain
+            if (current != message) ReferenceCountUtil.release(current);
+        }
+    }
+
+    /**
+     * Pass a message about to be written
+     * through the chain
+     *
+     * @param channel the channel the message is written on
+     * @param message the message to write
+     * @return the message to write, or null if a
+     * handler filtered it
+     */
+    WritableMessage emit(final NetChannel channel, final WritableMessage message) {
+        WritableMessage current = message;
+        for (Link link : links) {
+            if (link.filter) {
+                Object result = link.handler.handle(current);
+                if (result == null) return null;
+                if (result instanceof WritableMessage) current = (WritableMessage) result;
+            }
+
+            if (link.output != null) link.output.emit(channel, current);
+        }
+
+        return current;
+    }
+
+    private static class Link {
+
+        private final ChannelHandler handler;
+        private final boolean filter;
+        private final InputChannel input;
+        private final OutputChannel output;
+
+        private Link(final ChannelHandler handler) {
+            this.handler = handler;
+            this.filter = overridesHandle(handler);
+            this.input = (handler instanceof InputChannel ? (InputChannel) handler : null);
+            this.output = (handler instanceof OutputChannel ? (OutputChannel) handler : null);
+        }
+
+        private static boolean overridesHandle(final ChannelHandler handler) {
+            try {
+                return handler.getClass().getMethod("handle", NetMessage.class).getDeclaringClass() != ChannelHandler.class;
+            } catch (NoSuchMethodException ex) {
+                return true;
+            }
+        }
+    }
+}
@@ -1,49 +1,102 @@
 package es.karmadev.network.channel;
 
+import es.karmadev.api.network.EncryptMode;
 import es.karmadev.api.network.channel.ChannelHandler;
+import es.karmadev.api.network.channel.ExecutionMode;
+import es.karmadev.api.network.channel.FlushMode;
 import es.karmadev.api.network.channel.NetChannel;
+import es.karmadev.api.network.channel.OverflowMode;
+import es.karmadev.api.network.channel.WritabilityListener;
 import es.karmadev.api.network.channel.handler.InputChannel;
-import es.karmadev.api.network.channel.handler.OutputChannel;
+import es.karmadev.api.network.crypto.CipherSuite;
+import es.karmadev.api.network.crypto.CipherSuites;
+import es.karmadev.api.network.exception.channel.ChannelFullException;
+import es.karmadev.api.network.message.NetMessage;
 import es.karmadev.api.network.message.ReadOnlyMessage;
 import es.karmadev.api.network.message.WritableMessage;
 import es.karmadev.api.network.message.frame.NetFrame;
+import es.karmadev.network.handler.CompressionHandler;
 import es.karmadev.network.handler.DecoderHandler;
 import es.karmadev.network.handler.EncodeHandler;
+import es.karmadev.network.handler.FrameDecoder;
+import es.karmadev.network.handler.FrameEncoder;
 import es.karmadev.network.handler.InboundProcessHandler;
 import es.karmadev.network.handler.OutboundProcessHandler;
+import es.karmadev.network.handler.SessionHandler;
+import es.karmadev.network.handler.StreamHandler;
+import es.karmadev.network.message.EncodableMessage;
 import es.karmadev.network.message.MessageConstructor;
+import es.karmadev.network.message.frame.FrameStream;
 import es.karmadev.network.message.frame.NetworkFrame;
+import es.karmadev.network.security.AesGcmCipherSuite;
+import es.karmadev.network.security.ChannelIdentity;
+import es.karmadev.network.security.EnvelopeFrame;
+import es.karmadev.network.security.PeerSession;
 import es.karmadev.network.util.ChannelRequest;
 import es.karmadev.network.util.FunctionalVariable;
+import es.karmadev.network.util.InFlightTable;
+import es.karmadev.network.util.OrderedExecutor;
+import es.karmadev.network.util.OutboundBacklog;
+import es.karmadev.network.util.PeerRegistry;
+import es.karmadev.network.wire.Opcode;
+import es.karmadev.network.wire.WireFrame;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
-import javax.crypto.*;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
 import java.security.*;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 public class NettyChannel implements NetChannel {
 
-    private final EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-    private final EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private final static FastThreadLocal<Cipher> rsaCiphers = new FastThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() throws GeneralSecurityException {
+            return Cipher.getInstance("RSA");
+        }
+    };
+
+    /**
+     * The route of the messages asking for
+     * the channel identity key
+     */
+    public final static String DISCOVER_ROUTE = "discover";
+
+    private final static long CANCEL_RETENTION = TimeUnit.MINUTES.toMillis(1);
+    //Below this size, sealing the whole payload per connection costs about the same as sealing a key slot
+    private final static int ENVELOPE_MIN_SIZE = 1024;
+    private final static AttributeKey<OutboundBacklog> BACKLOG = AttributeKey.valueOf("securechanneling-backlog");
+    private final static AttributeKey<OutboundBacklog> STREAM_BACKLOG = AttributeKey.valueOf("securechanneling-stream-backlog");
+
+    private final ChannelRuntime runtime;
+    private final boolean usesRuntimeLoops;
+    private final AtomicBoolean released = new AtomicBoolean();
 
     private final Channel channel;
 
@@ -51,28 +104,70 @@ public class NettyChannel implements NetChannel {
     public final FunctionalVariable<String> serverId = FunctionalVariable.createUnassigned();
 
     private final ChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
-    public final Map<String, String> groupIds = new HashMap<>();
+    public final PeerRegistry peers = new PeerRegistry();
 
-    final List<ChannelHandler> handlerList = new ArrayList<>(Collections.singleton(new InputChannel() {
+    /*
+    Answers the "discover" route, and the unrouted requests whose
+    first string is "discover", which peers sent before messages had routes
+     */
+    private final InputChannel discoverResponder = new InputChannel() {
         @Override
         public void receive(NetChannel channel, ReadOnlyMessage message) {
-            String utf = message.readUTF();
+            if (!DISCOVER_ROUTE.equals(message.route()) && !DISCOVER_ROUTE.equals(message.readUTF())) return;
             String id = message.readKey("id");
 
-            if (id != null && utf != null && utf.equals("discover")) {
+            if (id != null) {
                 WritableMessage writableMessage = MessageConstructor.newResponseMessage(message);
                 writableMessage.writeUTF("hello");
-                writableMessage.writeKey("key", Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+                writableMessage.writeKey("key", Base64.getEncoder().encodeToString(channelKeys().getPublic().getEncoded()));
                 writableMessage.setEncryption(false);
 
                 channel.writeTo(id, writableMessage);
             }
         }
-    }));
-
-    private final KeyPair pair;
-    private final ConcurrentMap<String, PublicKey> sideKeys = new ConcurrentHashMap<>();
+    };
+
+    private volatile HandlerChain handlers = HandlerChain.EMPTY.with(discoverResponder);
+    private volatile Map<String, HandlerChain> routes = Collections.singletonMap(DISCOVER_ROUTE, HandlerChain.EMPTY.with(discoverResponder));
+
+    private volatile int maxFrameLength = 8 * 1024 * 1024;
+    private volatile long sessionMaxMessages = 1L << 24;
+    private volatile long sessionMaxBytes = 1L << 34;
+    private volatile CipherSuite cipherSuite = CipherSuites.get(AesGcmCipherSuite.NAME);
+    private volatile boolean compression;
+    private volatile int compressionThreshold = 512;
+    private volatile int streamFrameLength = 16 * 1024;
+    private volatile long reassemblyMaxBytes = 64L * 1024 * 1024;
+    private volatile long reassemblyTimeout = TimeUnit.SECONDS.toMillis(30);
+    private final LongAdder reassemblyEvictions = new LongAdder();
+    private final AtomicInteger streamIds = new AtomicInteger();
+    private final LongAdder compressionInput = new LongAdder();
+    private final LongAdder compressionOutput = new LongAdder();
+
+    private final ChannelIdentity identity;
     private final Queue<ChannelRequest> requests = new ConcurrentLinkedQueue<>();
+    private final InFlightTable inFlight;
+    private final Set<Integer> cancelled = ConcurrentHashMap.newKeySet();
+    private volatile long requestTimeout = TimeUnit.SECONDS.toMillis(30);
+    private volatile ExecutionMode executionMode = ExecutionMode.INLINE;
+    private volatile int dispatchLaneLimit = 256;
+    private volatile int dispatchQueueLimit = 4096;
+    private volatile FlushMode flushMode = FlushMode.END_OF_TICK;
+    private volatile int flushBatchSize = 64;
+    private volatile WriteBufferWaterMark waterMark = WriteBufferWaterMark.DEFAULT;
+    private volatile long outboundQueueLimit = 16L * 1024 * 1024;
+    private volatile OverflowMode overflowMode = OverflowMode.WAIT;
+    private final List<WritabilityListener> writabilityListeners = new CopyOnWriteArrayList<>();
+
+    //Only used from the channel event loop
+    private final Set<Channel> unflushed = new HashSet<>();
+    private int unflushedWrites;
+    private boolean flushScheduled;
+    private final Runnable flushTask = () -> {
+        flushScheduled = false;
+        flushPending();
+    };
+    private volatile OrderedExecutor dispatcher;
 
     /**
      * Initialize the netty channel
@@ -87,75 +182,170 @@ public class NettyChannel implements NetChannel {
      * @param port the channel port
      */
     public NettyChannel(final int port) throws InterruptedException {
+        this(port, ChannelIdentity.shared());
+    }
+
+    /**
+     * Initialize the netty channel
+     *
+     * @param port the channel port
+     * @param identity the channel identity
+     */
+    public NettyChannel(final int port, final ChannelIdentity identity) throws InterruptedException {
+        this(port, identity, ChannelRuntime.shared());
+    }
+
+    /**
+     * Initialize the netty channel
+     *
+     * @param port the channel port
+     * @param identity the channel identity
+     * @param runtime the runtime the channel runs on
+     */
+    public NettyChannel(final int port, final ChannelIdentity identity, final ChannelRuntime runtime) throws InterruptedException {
         server = true;
-        KeyPairGenerator generator;
-        try {
-            generator = KeyPairGenerator.getInstance("RSA");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        this.identity = identity;
+        this.runtime = runtime;
+        this.usesRuntimeLoops = true;
+        this.inFlight = new InFlightTable(runtime.timer());
 
-        generator.initialize(2048);
-        pair = generator.generateKeyPair();
+        runtime.acquire();
 
         ServerBootstrap bootstrap = new ServerBootstrap();
-        bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+        bootstrap.group(runtime.bossGroup(), runtime.workerGroup())
+                .channel(runtime.transport().serverChannel())
                 .childHandler(new ChannelInitializer<SocketChannel>() {
 
                     @Override
                     protected void initChannel(SocketChannel channel) {
+                        channel.config().setWriteBufferWaterMark(waterMark);
+
                         ChannelPipeline pipeline = channel.pipeline();
+                        pipeline.addLast("server-frame-decoder", new FrameDecoder(NettyChannel.this));
+                        pipeline.addLast("server-frame-encoder", FrameEncoder.INSTANCE);
+                        pipeline.addLast("server-session", new SessionHandler(NettyChannel.this));
+                        pipeline.addLast("server-compression", new CompressionHandler(NettyChannel.this));
+                        pipeline.addLast("server-stream", new StreamHandler(NettyChannel.this));
                         pipeline.addLast("server-encoder", new EncodeHandler());
                         pipeline.addLast("server-decoder", new DecoderHandler(NettyChannel.this));
                         pipeline.addLast("server-handler", new InboundProcessHandler(NettyChannel.this));
-                        pipeline.addLast("server-outbound", new OutboundProcessHandler(group::add, group::remove));
+                        pipeline.addLast("server-outbound", new OutboundProcessHandler(group::add, NettyChannel.this::disconnected));
                     }
                 })
                 .option(ChannelOption.SO_BACKLOG, 128)
-                .option(ChannelOption.SO_KEEPALIVE, true);
+                .option(ChannelOption.ALLOCATOR, runtime.allocator())
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.ALLOCATOR, runtime.allocator());
 
-        channel = bootstrap.bind(port).sync().channel();
+        try {
+            channel = bootstrap.bind(port).sync().channel();
+        } catch (InterruptedException | RuntimeException ex) {
+            releaseRuntime();
+            throw ex;
+        }
     }
 
+    /**
+     * Initialize the netty channel
+     *
+     * @param address the server address
+     * @param port the server port
+     */
     public NettyChannel(final String address, final int port) throws InterruptedException {
+        this(address, port, ChannelIdentity.shared());
+    }
+
+    /**
+     * Initialize the netty channel
+     *
+     * @param address the server address
+     * @param port the server port
+     * @param identity the channel identity
+     */
+    public NettyChannel(final String address, final int port, final ChannelIdentity identity) throws InterruptedException {
+        this(address, port, identity, ChannelRuntime.shared());
+    }
+
+    /**
+     * Initialize the netty channel
+     *
+     * @param address the server address
+     * @param port the server port
+     * @param identity the channel identity
+     * @param runtime the runtime the channel runs on
+     */
+    public NettyChannel(final String address, final int port, final ChannelIdentity identity, final ChannelRuntime runtime) throws InterruptedException {
         server = false;
         Consumer<String> actionExecutor = (serverId) -> {
             if (serverId == null) return;
 
             ChannelRequest request;
             while ((request = requests.poll()) != null) {
-                handleChannel(request.getChannel(), serverId, request.getMessage(), request.getListener(), request.getFuture());
+                ChannelFuture write = handleChannel(request.getChannel(), serverId, request.getMessage());
+
+                ChannelPromise queued = request.getPromise();
+                if (queued == null) continue;
+                if (write == null) {
+                    queued.trySuccess();
+                } else {
+                    write.addListener((ChannelFutureListener) future -> {
+                        if (future.isSuccess()) {
+                            queued.trySuccess();
+                        } else {
+                            queued.tryFailure(future.cause());
+                        }
+                    });
+                }
             }
+            flushPending();
         };
         serverId.onAssignment(actionExecutor);
         serverId.onUpdate(actionExecutor);
 
-        KeyPairGenerator generator;
-        try {
-            generator = KeyPairGenerator.getInstance("RSA");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
-        generator.initialize(2048);
-        pair = generator.generateKeyPair();
+        this.identity = identity;
+        this.runtime = runtime;
+        this.usesRuntimeLoops = true;
+        this.inFlight = new InFlightTable(runtime.timer());
+
+        runtime.acquire();
 
         Bootstrap bootstrap = new Bootstrap();
-        bootstrap.group(workerGroup)
-                .channel(NioSocketChannel.class)
+        bootstrap.group(runtime.workerGroup())
+                .channel(runtime.transport().socketChannel())
+                .option(ChannelOption.ALLOCATOR, runtime.allocator())
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(final SocketChannel channel) {
+                        channel.config().setWriteBufferWaterMark(waterMark);
+
                         ChannelPipeline pipeline = channel.pipeline();
+                        pipeline.addLast("client-frame-decoder", new FrameDecoder(NettyChannel.this));
+                        pipeline.addLast("client-frame-encoder", FrameEncoder.INSTANCE);
+                        pipeline.addLast("client-session", new SessionHandler(NettyChannel.this));
+                        pipeline.addLast("client-compression", new CompressionHandler(NettyChannel.this));
+                        pipeline.addLast("client-stream", new StreamHandler(NettyChannel.this));
                         pipeline.addLast("client-encoder", new EncodeHandler());
                         pipeline.addLast("client-decoder", new DecoderHandler(NettyChannel.this));
                         pipeline.addLast("client-handler", new InboundProcessHandler(NettyChannel.this));
-                        pipeline.addLast("client-outbound", new OutboundProcessHandler(group::add, group::remove));
+                        pipeline.addLast("client-outbound", new OutboundProcessHandler(group::add, NettyChannel.this::disconnected));
                     }
                 });
 
-        ChannelFuture connectFuture = bootstrap.connect(address, port).sync();
-        this.channel = connectFuture.channel();
+        //Registered before connecting, so the channel is known before the handshake is sent
+        try {
+            this.channel = bootstrap.register().sync().channel();
+        } catch (InterruptedException | RuntimeException ex) {
+            releaseRuntime();
+            throw ex;
+        }
+
+        try {
+            channel.connect(new InetSocketAddress(address, port)).sync();
+        } catch (InterruptedException | RuntimeException ex) {
+            channel.close();
+            releaseRuntime();
+            throw ex;
+        }
     }
 
     /**
@@ -165,29 +355,415 @@ public class NettyChannel implements NetChannel {
      * @param asServer is the channel server side?
      */
     public NettyChannel(final Channel parent, final boolean asServer) {
+        this(parent, asServer, ChannelIdentity.shared());
+    }
+
+    /**
+     * Initialize the netty channel
+     *
+     * @param parent the parent channel
+     * @param asServer is the channel server side?
+     * @param identity the channel identity
+     */
+    public NettyChannel(final Channel parent, final boolean asServer, final ChannelIdentity identity) {
+        this(parent, asServer, identity, ChannelRuntime.shared());
+    }
+
+    /**
+     * Initialize the netty channel. The channel keeps
+     * running on the parent channel event loop, and only
+     * uses the timer of the runtime
+     *
+     * @param parent the parent channel
+     * @param asServer is the channel server side?
+     * @param identity the channel identity
+     * @param runtime the runtime the channel timeouts run on
+     */
+    public NettyChannel(final Channel parent, final boolean asServer, final ChannelIdentity identity, final ChannelRuntime runtime) {
         server = asServer;
-        KeyPairGenerator generator = null;
-        try {
-            generator = KeyPairGenerator.getInstance("RSA");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
-        generator.initialize(2048);
-        pair = generator.generateKeyPair();
+        this.identity = identity;
+        this.runtime = runtime;
+        this.usesRuntimeLoops = false;
+        this.inFlight = new InFlightTable(runtime.timer());
 
         this.channel = parent;
         channel.eventLoop().submit(() -> {
+            channel.config().setWriteBufferWaterMark(waterMark);
+
             ChannelPipeline pipeline = channel.pipeline();
 
+            pipeline.addLast("existing-frame-decoder", new FrameDecoder(NettyChannel.this));
+            pipeline.addLast("existing-frame-encoder", FrameEncoder.INSTANCE);
+            pipeline.addLast("existing-session", new SessionHandler(NettyChannel.this));
+            pipeline.addLast("existing-compression", new CompressionHandler(NettyChannel.this));
+            pipeline.addLast("existing-stream", new StreamHandler(NettyChannel.this));
             pipeline.addLast("existing-decoder", new DecoderHandler(NettyChannel.this));
             pipeline.addLast("existing-encoder", new EncodeHandler());
             pipeline.addLast("existing-handler", new InboundProcessHandler(NettyChannel.this));
-            pipeline.addLast("existing-outbound", new OutboundProcessHandler(group::add, group::remove));
+            pipeline.addLast("existing-outbound", new OutboundProcessHandler(group::add, NettyChannel.this::disconnected));
         });
     }
 
+    /**
+     * Get the runtime the channel
+     * runs on
+     *
+     * @return the channel runtime
+     */
+    public ChannelRuntime getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Get the network transport the
+     * channel is using
+     *
+     * @return the channel transport
+     */
+    public Transport getTransport() {
+        return Transport.of(channel);
+    }
+
+    /**
+     * Get the max length a single inbound frame
+     * can have. Frames declaring a bigger length are
+     * rejected before their data is buffered
+     *
+     * @return the max frame length
+     */
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    /**
+     * Set the max length a single inbound
+     * frame can have
+     *
+     * @param maxFrameLength the max frame length
+     */
+    public void setMaxFrameLength(final int maxFrameLength) {
+        if (maxFrameLength <= 0) throw new IllegalArgumentException("Max frame length must be positive");
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Get the amount of messages a session key
+     * seals before it is rotated
+     *
+     * @return the session max messages
+     */
+    public long getSessionMaxMessages() {
+        return sessionMaxMessages;
+    }
+
+    /**
+     * Get the amount of bytes a session key
+     * seals before it is rotated
+     *
+     * @return the session max bytes
+     */
+    public long getSessionMaxBytes() {
+        return sessionMaxBytes;
+    }
+
+    /**
+     * Set when session keys are rotated. The
+     * setting applies to connections established
+     * after the call
+     *
+     * @param maxMessages the amount of messages after which
+     *                    the session key rotates
+     * @param maxBytes the amount of bytes after which
+     *                 the session key rotates
+     */
+    public void setSessionRotation(final long maxMessages, final long maxBytes) {
+        if (maxMessages <= 0 || maxBytes <= 0) throw new IllegalArgumentException("Session rotation limits must be positive");
+
+        this.sessionMaxMessages = maxMessages;
+        this.sessionMaxBytes = maxBytes;
+    }
+
+    /**
+     * Get the time a request waits for its
+     * response before it fails
+     *
+     * @return the request timeout in milliseconds, or
+     * zero if requests wait forever
+     */
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Set the time a request waits for its response
+     * before it fails with a {@link java.util.concurrent.TimeoutException}.
+     * The setting applies to requests written after the call
+     *
+     * @param timeout the request timeout, or zero to wait forever
+     * @param unit the timeout unit
+     */
+    public void setRequestTimeout(final long timeout, final TimeUnit unit) {
+        if (timeout < 0) throw new IllegalArgumentException("Request timeout cannot be negative");
+        this.requestTimeout = unit.toMillis(timeout);
+    }
+
+    /**
+     * Get the amount of requests waiting
+     * for a response
+     *
+     * @return the in-flight request count
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Complete the request the received message
+     * answers, if any
+     *
+     * @param message the received message
+     * @return if the message answered a request
+     */
+    public boolean completeRequest(final ReadOnlyMessage message) {
+        return inFlight.complete(message);
+    }
+
+    /**
+     * Get where the channel handlers receive
+     * the messages
+     *
+     * @return the execution mode
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Set where the channel handlers receive the
+     * messages. Out of the network threads, messages
+     * of the same sender are still received in order,
+     * while different senders are handled in parallel
+     *
+     * @param mode the execution mode
+     * @param parallelism the amount of pool threads, or the amount
+     *                    of senders handled at the same time on
+     *                    virtual threads. Ignored when inline
+     * @throws UnsupportedOperationException if virtual threads are
+     * not available on this Java version
+     */
+    public synchronized void setExecutionMode(final ExecutionMode mode, final int parallelism) {
+        if (mode != ExecutionMode.INLINE && parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive");
+
+        OrderedExecutor previous = dispatcher;
+        switch (mode) {
+            case POOL:
+                //More lanes than threads, so two busy senders rarely share a lane
+                int lanes = parallelism * 4;
+
+                //A lane is only queued on the pool once at a time, so the queue never holds more than the lanes
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(lanes), new DefaultThreadFactory("securechanneling-dispatch", true));
+                pool.allowCoreThreadTimeOut(true);
+
+                dispatcher = new OrderedExecutor(pool, lanes, this::getDispatchLaneLimit, this::getDispatchQueueLimit);
+                break;
+            case VIRTUAL:
+                dispatcher = new OrderedExecutor(newVirtualExecutor(), parallelism, this::getDispatchLaneLimit, this::getDispatchQueueLimit);
+                break;
+            default:
+                dispatcher = null;
+        }
+        executionMode = mode;
+
+        //Tasks already queued on the previous executor still run
+        if (previous != null) ((ExecutorService) previous.executor()).shutdown();
+    }
+
+    /**
+     * Get the max amount of received messages a
+     * dispatch lane holds before the senders of the
+     * lane stop being read
+     *
+     * @return the dispatch lane limit
+     */
+    public int getDispatchLaneLimit() {
+        return dispatchLaneLimit;
+    }
+
+    /**
+     * Get the max amount of received messages every
+     * dispatch lane holds before the senders stop
+     * being read
+     *
+     * @return the dispatch queue limit
+     */
+    public int getDispatchQueueLimit() {
+        return dispatchQueueLimit;
+    }
+
+    /**
+     * Set how many received messages wait for the handlers
+     * out of the network threads. Once a lane, or all of them
+     * together, go over their limit, the connection which sent
+     * the message stops being read, and it is read again once
+     * the queues drain under half of their limits. Messages
+     * are never dropped, so a slow handler slows the sender
+     * down instead of piling up its messages in memory
+     *
+     * @param laneLimit the max messages of a lane, which handles
+     *                  a share of the senders in order
+     * @param limit the max messages of every lane together
+     */
+    public void setDispatchQueueLimits(final int laneLimit, final int limit) {
+        if (laneLimit <= 0 || limit <= 0) throw new IllegalArgumentException("Dispatch queue limits must be positive");
+
+        this.dispatchLaneLimit = laneLimit;
+        this.dispatchQueueLimit = limit;
+    }
+
+    /**
+     * Get the amount of received messages waiting
+     * for, or being handled by, the handlers out of
+     * the network threads
+     *
+     * @return the queued message count
+     */
+    public int getQueuedDispatches() {
+        OrderedExecutor current = dispatcher;
+        return (current == null ? 0 : current.queued());
+    }
+
+    /**
+     * Get the highest amount of received messages
+     * which have been queued at the same time since
+     * the execution mode was set
+     *
+     * @return the peak queued message count
+     */
+    public int getPeakQueuedDispatches() {
+        OrderedExecutor current = dispatcher;
+        return (current == null ? 0 : current.peak());
+    }
+
+    /**
+     * Run a task following the channel execution
+     * mode. Tasks of the same sender run in the order
+     * they are submitted
+     *
+     * @param sender the sender the task belongs to
+     * @param task the task to run
+     * @return false if the dispatch queues are over their
+     * {@link #setDispatchQueueLimits(int, int) limits} after
+     * taking the task
+     */
+    public boolean execute(final Object sender, final Runnable task) {
+        OrderedExecutor current = dispatcher;
+        if (current == null) {
+            task.run();
+            return true;
+        }
+
+        return current.execute(sender, task);
+    }
+
+    /**
+     * Run an action once the dispatch queues of the
+     * sender drain under half of their limits, or right
+     * away if they already are
+     *
+     * @param sender the sender whose queue is full
+     * @param action the action to run
+     */
+    public void whenDispatchDrained(final Object sender, final Runnable action) {
+        OrderedExecutor current = dispatcher;
+        if (current == null) {
+            action.run();
+            return;
+        }
+
+        current.whenDrained(sender, action);
+    }
+
+    /**
+     * Get the cipher suite used by the channel
+     *
+     * @return the channel cipher suite
+     */
+    public CipherSuite getCipherSuite() {
+        return cipherSuite;
+    }
+
+    /**
+     * Set the cipher suite used by the channel. A
+     * connection uses the suite of its server side, so
+     * on a client the suite only applies to data encrypted
+     * with {@link #encrypt(WritableMessage, PublicKey)}. The
+     * setting applies to connections established after
+     * the call
+     *
+     * @param name the cipher suite name
+     * @throws IllegalArgumentException if there is no suite with that name
+     */
+    public void setCipherSuite(final String name) {
+        CipherSuite suite = CipherSuites.get(name);
+        if (suite == null) throw new IllegalArgumentException("Unknown cipher suite " + name + ", available: " + CipherSuites.names());
+
+        this.cipherSuite = suite;
+    }
+
+    /**
+     * Create the handshake message for the
+     * connection
+     *
+     * @param connection the connection
+     * @return the handshake message
+     */
+    public WritableMessage createHandshake(final Channel connection) {
+        WritableMessage handshake = MessageConstructor.newOutMessage();
+        handshake.writeUTF("handshake-request");
+        handshake.writeUTF(id());
+
+        PeerSession session = connection.attr(PeerSession.KEY).get();
+        if (session != null) {
+            Base64.Encoder encoder = Base64.getEncoder();
+            handshake.writeKey("key", encoder.encodeToString(channelKeys().getPublic().getEncoded()));
+            handshake.writeKey("session", encoder.encodeToString(session.publicKey()));
+            handshake.writeKey("suite", session.offer().name());
+            handshake.writeKey("signature", encoder.encodeToString(session.signature()));
+        }
+        if (compression) handshake.writeKey("compression", CompressionHandler.ALGORITHM);
+
+        return handshake;
+    }
+
+    /**
+     * Get the registered catch-all handlers
+     *
+     * @return the registered handlers
+     */
     public List<ChannelHandler> getHandlerList() {
-        return new ArrayList<>(handlerList);
+        return handlers.handlers();
+    }
+
+    /**
+     * Get the handlers registered for a route
+     *
+     * @param route the route
+     * @return the registered handlers
+     */
+    public List<ChannelHandler> getHandlerList(final String route) {
+        HandlerChain chain = routes.get(route);
+        return (chain == null ? Collections.emptyList() : chain.handlers());
+    }
+
+    /**
+     * Dispatch a received message through
+     * the handlers of its route
+     *
+     * @param message the received message
+     */
+    public void dispatch(final ReadOnlyMessage message) {
+        chainFor(message).receive(this, message);
     }
 
     /**
@@ -206,8 +782,38 @@ public class NettyChannel implements NetChannel {
      * @param channel the channel
      */
     @Override
-    public void register(final ChannelHandler channel) {
-        handlerList.add(channel);
+    public synchronized void register(final ChannelHandler channel) {
+        handlers = handlers.with(channel);
+    }
+
+    /**
+     * Register a duplex channel for a route. The
+     * channel only receives and emits the messages
+     * of that route
+     *
+     * @param route the route
+     * @param channel the channel
+     */
+    @Override
+    public synchronized void register(final String route, final ChannelHandler channel) {
+        if (route == null) {
+            register(channel);
+            return;
+        }
+
+        Map<String, HandlerChain> updated = new HashMap<>(routes);
+        updated.put(route, updated.getOrDefault(route, HandlerChain.EMPTY).with(channel));
+
+        routes = updated;
+    }
+
+    private HandlerChain chainFor(final NetMessage message) {
+        String route = message.route();
+        if (route == null) return handlers;
+
+        //Routes without handlers of their own fall back to the catch-all handlers
+        HandlerChain chain = routes.get(route);
+        return (chain == null ? handlers : chain);
     }
 
     /**
@@ -219,46 +825,49 @@ public class NettyChannel implements NetChannel {
      */
     @Override
     public CompletableFuture<ReadOnlyMessage> writeTo(final String id, final WritableMessage message) {
-        String finalId = (id == null ? "*" : id);
+        return writeTo(id, message, overflowMode);
+    }
 
-        CompletableFuture<ReadOnlyMessage> future = new CompletableFuture<>();
-        this.channel.eventLoop().submit(() -> {
-            InputChannel inListener = new InputChannel() {
-                @Override
-                public void receive(NetChannel channel, ReadOnlyMessage inMessage) {
-                    if (message.id() == inMessage.id()) {
-                        future.complete(inMessage);
-                        handlerList.remove(this);
-                    }
-                }
-            };
+    /**
+     * Write a message for a specified target, deciding
+     * what to do if the outbound queue of the target is full
+     *
+     * @param id the target ID
+     * @param message the message to write
+     * @param mode what to do if the target queue is full
+     * @return the message completion
+     */
+    @Override
+    public CompletableFuture<ReadOnlyMessage> writeTo(final String id, final WritableMessage message, final OverflowMode mode) {
+        CompletableFuture<ReadOnlyMessage> future = track(message, id);
+        if (future.isDone()) return future;
+
+        //Broadcasts count their bytes once encoded
+        Channel target = connectionOf(id);
+        if (target == null && id != null && !id.equals("*")) {
+            //Not connected, the queues of the other peers have nothing to do with it
+            future.completeExceptionally(new IllegalArgumentException("No peer connected with ID " + id));
+            return future;
+        }
 
-            handlerList.add(inListener);
-            handlerList.forEach((handler) -> {
-                handler.handle(message);
+        long size = (target == null ? 0 : sizeOf(message));
+        boolean streamed = size > streamFrameLength;
 
-                if (handler instanceof OutputChannel) {
-                    OutputChannel out = (OutputChannel) handler;
-                    out.emit(this, message);
-                }
-            });
+        Throwable rejected = admit(target, streamed, timeoutOf(message), mode);
+        if (rejected != null) {
+            future.completeExceptionally(rejected);
+            return future;
+        }
+        if (future.isDone()) return future; //Timed out while waiting
 
-            message.writeKey("id", channel.id().asShortText()); //We are always the last ones on modifying the message
-            if (!finalId.equals("*")) {
-                message.writeKey("for", id);
-            }
+        OutboundBacklog backlog = (target == null ? null : backlogOf(target, streamed));
+        if (backlog != null) backlog.reserve(size);
 
-            if (!server) {
-                if (serverId.isNull()) {
-                    requests.add(new ChannelRequest(channel, message, inListener, future));
-                } else {
-                    handleChannel(channel, serverId.get(), message, inListener, future);
-                }
-            } else {
-                for (Channel channel : this.group) {
-                    handleChannel(channel, groupIds.getOrDefault(channel.id().asShortText(), channel.id().asShortText()), message, inListener, future);
-                }
-            }
+        this.channel.eventLoop().submit(() -> {
+            ChannelFuture write = send(id, message);
+            releaseOnWrite(backlog, size, write);
+            if (!message.isResponseExpected()) completeOnWrite(future, write);
+            written(1);
 
             /*if (server) {
                 for (Channel channel : this.group) {
@@ -400,95 +1009,694 @@ public class NettyChannel implements NetChannel {
     }
 
     /**
-     * Handle the channel message invocation
+     * Write the messages on the channel. The messages
+     * are written together and sent with a single flush,
+     * whatever the channel flush mode is
      *
-     * @param channel the channel to send to
-     * @param id the channel target ID
-     * @param message the message
-     * @param inListener the message listener
-     * @param future the future listener
+     * @param messages the messages to write
+     * @return the completion of each message, in the
+     * same order as the messages
      */
-    private void handleChannel(final Channel channel, final String id, final WritableMessage message,
-                               final InputChannel inListener, final CompletableFuture<ReadOnlyMessage> future) {
-        if (message.encrypted()) {
-            PublicKey recipientKey = sideKeys.get(id);
+    @Override
+    public List<CompletableFuture<ReadOnlyMessage>> writeAll(final Collection<? extends WritableMessage> messages) {
+        List<CompletableFuture<ReadOnlyMessage>> futures = new ArrayList<>(messages.size());
+        List<WritableMessage> pending = new ArrayList<>(messages.size());
+        List<CompletableFuture<ReadOnlyMessage>> pendingFutures = new ArrayList<>(messages.size());
+        for (WritableMessage message : messages) {
+            CompletableFuture<ReadOnlyMessage> future = track(message, null);
+            futures.add(future);
+
+            if (!future.isDone()) {
+                pending.add(message);
+                pendingFutures.add(future);
+            }
+        }
 
-            if (recipientKey == null) {
-                // Perform key exchange to obtain the recipient's public key
-                performKeyExchange(id).whenComplete((publicKey, error) -> {
-                    if (error == null) {
-                        sideKeys.put(id, publicKey);
-                        handleChannel(channel, id, message, inListener, future);
-                    } else {
-                        handlerList.remove(inListener);
-                        future.completeExceptionally(error);
-                    }
-                });
+        if (!pending.isEmpty()) {
+            Channel target = connectionOf(null);
 
-                return;
+            //Checked once, the messages of the batch are queued together
+            long timeout = 0;
+            for (WritableMessage message : pending) {
+                long messageTimeout = timeoutOf(message);
+                if (messageTimeout != 0 && (timeout == 0 || messageTimeout < timeout)) timeout = messageTimeout;
             }
 
-            NetFrame serialize = encrypt(message, recipientKey);
-            byte[] dataToSend;
-            try (ByteArrayOutputStream out = new ByteArrayOutputStream(); ObjectOutputStream stream = new ObjectOutputStream(out)) {
-                stream.writeObject(serialize);
-                stream.flush();
+            long[] sizes = new long[pending.size()];
+            boolean streamed = false;
+            if (target != null) {
+                for (int i = 0; i < sizes.length; i++) {
+                    sizes[i] = sizeOf(pending.get(i));
+                    streamed |= sizes[i] > streamFrameLength;
+                }
+            }
 
-                dataToSend = out.toByteArray();
-                channel.writeAndFlush(Unpooled.copiedBuffer(dataToSend)).addListener((ChannelFutureListener) channelFuture -> {
-                    Throwable sendError = channelFuture.cause();
-                    if (sendError != null) {
-                        handlerList.remove(inListener);
-                        future.completeExceptionally(sendError);
-                    }
-                });
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
+            Throwable rejected = admit(target, streamed, timeout, overflowMode);
+            if (rejected != null) {
+                for (CompletableFuture<ReadOnlyMessage> future : futures) future.completeExceptionally(rejected);
+                return futures;
             }
-        } else {
-            byte[] dataToSend = message.toByteArray();
-            channel.writeAndFlush(Unpooled.copiedBuffer(dataToSend)).addListener((ChannelFutureListener) channelFuture -> {
+
+            OutboundBacklog[] backlogs = new OutboundBacklog[sizes.length];
+            if (target != null) {
+                for (int i = 0; i < sizes.length; i++) {
+                    backlogs[i] = backlogOf(target, sizes[i] > streamFrameLength);
+                    backlogs[i].reserve(sizes[i]);
+                }
+            }
+
+            this.channel.eventLoop().submit(() -> {
+                for (int i = 0; i < sizes.length; i++) {
+                    WritableMessage message = pending.get(i);
+                    ChannelFuture write = send(null, message);
+
+                    releaseOnWrite(backlogs[i], sizes[i], write);
+                    if (!message.isResponseExpected()) completeOnWrite(pendingFutures.get(i), write);
+                }
+                flushPending();
+            });
+        }
+
+        return futures;
+    }
+
+    /**
+     * Send every message which has been
+     * written but not sent yet
+     */
+    @Override
+    public void flush() {
+        this.channel.eventLoop().execute(this::flushPending);
+    }
+
+    /**
+     * Get if the outbound queue of a peer
+     * can take more writes
+     *
+     * @param peer the peer ID, ignored on clients, or null
+     *             for every peer of the channel
+     * @return if the peer can take writes
+     */
+    @Override
+    public boolean isWritable(final String peer) {
+        Channel target = connectionOf(peer);
+        if (target != null) return target.isActive() && backlogOf(target).isWritable();
+        if (peer != null && !peer.equals("*")) return false; //Not connected
+
+        for (Channel connection : group) {
+            if (!backlogOf(connection).isWritable()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Add a listener for the outbound queues
+     * of the peers filling up and draining
+     *
+     * @param listener the listener
+     */
+    @Override
+    public void addWritabilityListener(final WritabilityListener listener) {
+        writabilityListeners.add(listener);
+    }
+
+    /**
+     * Remove a writability listener
+     *
+     * @param listener the listener
+     */
+    @Override
+    public void removeWritabilityListener(final WritabilityListener listener) {
+        writabilityListeners.remove(listener);
+    }
+
+    /**
+     * Get the amount of bytes written to a peer
+     * which have not reached the network yet
+     *
+     * @param peer the peer ID, ignored on clients
+     * @return the pending bytes, or zero if the
+     * peer is not connected
+     */
+    public long getOutboundPending(final String peer) {
+        Channel target = connectionOf(peer);
+        return (target == null ? 0 : backlogOf(target, false).pending() + backlogOf(target, true).pending());
+    }
+
+    /**
+     * Get the amount of bytes each peer can have
+     * queued before it stops taking writes
+     *
+     * @return the outbound queue limit
+     */
+    public long getOutboundQueueLimit() {
+        return outboundQueueLimit;
+    }
+
+    /**
+     * Set the amount of bytes each peer can have queued
+     * before it stops taking writes. A full peer takes writes
+     * again once its queue drains under half of the limit.
+     * Messages longer than a {@link #getStreamFrameLength() stream frame}
+     * have a queue of the same limit apart, so they do not hold
+     * back the shorter ones
+     *
+     * @param limit the outbound queue limit in bytes
+     */
+    public void setOutboundQueueLimit(final long limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Outbound queue limit must be positive");
+        this.outboundQueueLimit = limit;
+    }
+
+    /**
+     * Get what writes do when the outbound
+     * queue of their target is full
+     *
+     * @return the overflow mode
+     */
+    public OverflowMode getOverflowMode() {
+        return overflowMode;
+    }
+
+    /**
+     * Set what writes do when the outbound
+     * queue of their target is full
+     *
+     * @param mode the overflow mode
+     */
+    public void setOverflowMode(final OverflowMode mode) {
+        this.overflowMode = mode;
+    }
+
+    /**
+     * Get the write buffer watermarks
+     * of the connections
+     *
+     * @return the write buffer watermarks
+     */
+    public WriteBufferWaterMark getWriteBufferWaterMark() {
+        return waterMark;
+    }
+
+    /**
+     * Set the write buffer watermarks of the
+     * connections. Once a connection buffers more
+     * than the high watermark its streams pause, and
+     * they resume when it drains under the low one
+     *
+     * @param low the low watermark in bytes
+     * @param high the high watermark in bytes
+     */
+    public void setWriteBufferWaterMark(final int low, final int high) {
+        WriteBufferWaterMark mark = new WriteBufferWaterMark(low, high);
+        this.waterMark = mark;
+
+        for (Channel connection : group) connection.config().setWriteBufferWaterMark(mark);
+        if (!server) channel.config().setWriteBufferWaterMark(mark);
+    }
+
+    /**
+     * Get when the written messages are
+     * sent to the network
+     *
+     * @return the flush mode
+     */
+    public FlushMode getFlushMode() {
+        return flushMode;
+    }
+
+    /**
+     * Set when the written messages are sent to
+     * the network. Sending many messages with a single
+     * flush packs them in fewer system calls
+     *
+     * @param mode the flush mode
+     */
+    public void setFlushMode(final FlushMode mode) {
+        this.flushMode = mode;
+        if (mode != FlushMode.EXPLICIT) flush();
+    }
+
+    /**
+     * Get the amount of messages written before
+     * they are sent on {@link FlushMode#BATCHED} mode
+     *
+     * @return the flush batch size
+     */
+    public int getFlushBatchSize() {
+        return flushBatchSize;
+    }
+
+    /**
+     * Set the amount of messages written before
+     * they are sent on {@link FlushMode#BATCHED} mode
+     *
+     * @param batchSize the flush batch size
+     */
+    public void setFlushBatchSize(final int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Flush batch size must be positive");
+        this.flushBatchSize = batchSize;
+    }
+
+    /**
+     * Get if payload compression is offered
+     * to the other sides
+     *
+     * @return if compression is enabled
+     */
+    public boolean isCompressionEnabled() {
+        return compression;
+    }
+
+    /**
+     * Set if payload compression is offered to the
+     * other sides. Compression is only used with sides
+     * which offer it as well, and the setting applies to
+     * connections established after the call
+     *
+     * @param enabled if compression is enabled
+     */
+    public void setCompressionEnabled(final boolean enabled) {
+        this.compression = enabled;
+    }
+
+    /**
+     * Get the size a message must have
+     * to be compressed
+     *
+     * @return the compression threshold in bytes
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Set the size a message must have to be
+     * compressed. Smaller messages are sent as they
+     * are, as compressing them saves little or nothing
+     *
+     * @param threshold the compression threshold in bytes
+     */
+    public void setCompressionThreshold(final int threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("Compression threshold cannot be negative");
+        this.compressionThreshold = threshold;
+    }
+
+    /**
+     * Get the size of the compressed messages in
+     * relation to their original size. Messages under
+     * the threshold are not counted
+     *
+     * @return the compression ratio, or 1 if no
+     * message has been compressed
+     */
+    public double getCompressionRatio() {
+        long input = compressionInput.sum();
+        return (input == 0 ? 1 : (double) compressionOutput.sum() / input);
+    }
+
+    /**
+     * Get the amount of bytes compression
+     * has saved
+     *
+     * @return the saved bytes
+     */
+    public long getCompressionSavedBytes() {
+        return compressionInput.sum() - compressionOutput.sum();
+    }
+
+    /**
+     * Count a message which went through
+     * compression
+     *
+     * @param original the message original size
+     * @param compressed the message size once compressed
+     */
+    public void compressed(final int original, final int compressed) {
+        compressionInput.add(original);
+        compressionOutput.add(compressed);
+    }
+
+    private CompletableFuture<ReadOnlyMessage> track(final WritableMessage message, final String target) {
+        if (message.isExpired()) {
+            CompletableFuture<ReadOnlyMessage> future = new CompletableFuture<>();
+            future.completeExceptionally(new TimeoutException("Message " + message.id() + " expired before being sent"));
+            return future;
+        }
+        if (cancelled.contains(message.id())) {
+            //The other side cancelled the request this message answers
+            CompletableFuture<ReadOnlyMessage> future = new CompletableFuture<>();
+            future.cancel(false);
+            return future;
+        }
+
+        //Nothing answers responses and one way messages, so they are only waited for until written
+        if (!message.isResponseExpected()) return new CompletableFuture<>();
+
+        CompletableFuture<ReadOnlyMessage> future = inFlight.register(message.id(), timeoutOf(message), TimeUnit.MILLISECONDS);
+        future.whenComplete((response, error) -> {
+            if (error instanceof CancellationException) sendCancel(message.id(), target);
+        });
+
+        return future;
+    }
+
+    private static void completeOnWrite(final CompletableFuture<ReadOnlyMessage> future, final ChannelFuture write) {
+        if (write == null) {
+            future.complete(null);
+            return;
+        }
+
+        write.addListener((ChannelFutureListener) done -> {
+            if (done.isSuccess()) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(done.cause());
+            }
+        });
+    }
+
+    /*
+    Only requests are in the in-flight table, a response shares
+    the ID of the request it answers, so failing it by ID could fail
+    a request of ours. The rest learn about the failure from the
+    returned write
+     */
+    private ChannelFuture failed(final WritableMessage message, final Throwable error) {
+        if (message.isResponseExpected()) inFlight.fail(message.id(), error);
+        return channel.newFailedFuture(error);
+    }
+
+    private long timeoutOf(final WritableMessage message) {
+        long timeout = requestTimeout;
+        long timeLeft = message.timeLeft(TimeUnit.MILLISECONDS);
+        if (timeLeft != Long.MAX_VALUE && (timeout == 0 || timeLeft < timeout)) timeout = Math.max(1, timeLeft);
+
+        return timeout;
+    }
+
+    private ChannelFuture send(final String id, final WritableMessage message) {
+        WritableMessage emitted;
+        try {
+            emitted = chainFor(message).emit(this, message);
+        } catch (RuntimeException ex) {
+            return failed(message, ex);
+        }
+
+        if (emitted == null) return failed(message, new IllegalStateException("Message " + message.id() + " was discarded by a handler"));
+        if (emitted != message) emitted.setResponseExpected(message.isResponseExpected());
+
+        emitted.writeKey("id", channel.id().asShortText()); //We are always the last ones on modifying the message
+        if (id != null && !id.equals("*")) {
+            emitted.writeKey("for", id);
+        }
+
+        if (!server) {
+            if (serverId.isNull()) {
+                //Still counted in the backlog until the handshake lets it be written
+                ChannelPromise queued = channel.newPromise();
+                requests.add(new ChannelRequest(channel, emitted, queued));
+                return queued;
+            }
+
+            return handleChannel(channel, serverId.get(), emitted);
+        } else if (id != null && !id.equals("*")) {
+            Channel target = peers.get(id);
+            if (target == null) return failed(message, new IllegalArgumentException("No peer connected with ID " + id));
+
+            return handleChannel(target, id, emitted);
+        }
+
+        return broadcast(emitted);
+    }
+
+    /*
+    Written to many connections, so a broadcast is only
+    known to fail when it cannot be encoded
+     */
+    private ChannelFuture broadcast(final WritableMessage message) {
+        if (group.isEmpty() || !isWaiting(message)) return null;
+
+        //Encoded once, every connection writes a view of the same buffer
+        WireFrame frame;
+        try {
+            frame = EncodeHandler.frame(channel.alloc(), message);
+            if (compressesAll()) frame = CompressionHandler.compress(this, channel.alloc(), frame);
+            if (frame.hasFlag(WireFrame.FLAG_ENCRYPTED) && group.size() > 1 && frame.content().readableBytes() >= ENVELOPE_MIN_SIZE) {
+                //Encrypted once as well, each connection session only seals the content key
+                WireFrame plain = frame;
+                try {
+                    frame = EnvelopeFrame.seal(channel.alloc(), cipherSuite, plain);
+                } finally {
+                    plain.release();
+                }
+            }
+        } catch (GeneralSecurityException | RuntimeException ex) {
+            return failed(message, ex);
+        }
+
+        int size = frame.content().readableBytes();
+        boolean streamed = size > streamFrameLength;
+        ChannelFutureListener release = (future) -> backlogOf(future.channel(), streamed).release(size);
+        try {
+            for (Channel connection : group) {
+                backlogOf(connection, streamed).reserve(size);
+                connection.write(frame.retainedDuplicate(), connection.newPromise().addListener(release));
+                unflushed.add(connection);
+            }
+        } finally {
+            frame.release();
+        }
+
+        return null;
+    }
+
+    private boolean compressesAll() {
+        if (!compression) return false;
+        for (Channel connection : group) {
+            if (!CompressionHandler.isNegotiated(connection)) return false;
+        }
+
+        return true;
+    }
+
+    private ChannelFuture handleChannel(final Channel channel, final String id, final WritableMessage message) {
+        if (!isWaiting(message)) return null; //Timed out or cancelled before being sent
+
+        //Encrypted messages are sealed by the connection session, which is established during the handshake
+        ChannelFuture write = channel.write(message);
+        if (message.isResponseExpected()) {
+            write.addListener((ChannelFutureListener) channelFuture -> {
                 Throwable error = channelFuture.cause();
                 if (error != null) {
-                    handlerList.remove(inListener);
-                    future.completeExceptionally(error);
+                    inFlight.fail(message.id(), error);
                 }
             });
         }
+        unflushed.add(channel);
+
+        return write;
+    }
+
+    private boolean isWaiting(final WritableMessage message) {
+        return !message.isResponseExpected() || inFlight.isWaiting(message.id());
+    }
+
+    private Channel connectionOf(final String id) {
+        if (!server) return channel;
+        if (id == null || id.equals("*")) return null;
+
+        return peers.get(id);
+    }
+
+    private String peerOf(final Channel connection) {
+        return (server ? peers.idOf(connection) : serverId.get());
+    }
+
+    private OutboundBacklog backlogOf(final Channel connection) {
+        return backlogOf(connection, false);
+    }
+
+    /*
+    Messages longer than a stream frame are counted apart, as the
+    stream scheduler sends the shorter ones first. A long message
+    must not make the short ones wait until it has been sent
+     */
+    private OutboundBacklog backlogOf(final Channel connection, final boolean streamed) {
+        Attribute<OutboundBacklog> attribute = connection.attr(streamed ? STREAM_BACKLOG : BACKLOG);
+        OutboundBacklog backlog = attribute.get();
+        if (backlog != null) return backlog;
+
+        OutboundBacklog created = new OutboundBacklog(this::getOutboundQueueLimit, (streamed ? (writable) -> {} : (writable) -> writabilityChanged(connection, writable)));
+        backlog = attribute.setIfAbsent(created);
+
+        return (backlog == null ? created : backlog);
     }
 
     /**
-     * Perform a key exchange between two
-     * sides
+     * Apply the overflow mode to the connections
+     * a message is written to
      *
-     * @return the channel key
+     * @param target the target connection, or null for
+     *               every connection
+     * @param streamed if the message is longer than a stream frame
+     * @param timeout the max time to wait in milliseconds,
+     *                or zero to wait forever
+     * @param mode the overflow mode
+     * @return the reason the message is rejected, or
+     * null if it can be written
      */
-    private CompletableFuture<PublicKey> performKeyExchange(final String id) {
-        CompletableFuture<PublicKey> future = new CompletableFuture<>();
+    private Throwable admit(final Channel target, final boolean streamed, final long timeout, final OverflowMode mode) {
+        if (mode == OverflowMode.QUEUE) return null;
 
-        WritableMessage send = MessageConstructor.newOutMessage();
-        send.writeUTF("discover");
-        send.writeKey("id", channel.id().asShortText());
-        send.setEncryption(false); // Just in case
+        Collection<Channel> connections = (target != null ? Collections.singleton(target) : (server ? group : Collections.emptySet()));
+        for (Channel connection : connections) {
+            OutboundBacklog backlog = backlogOf(connection, streamed);
+            if (backlog.isWritable()) continue;
 
-        writeTo(id, send).whenComplete((response, error) -> {
-            if (error == null) {
-                String msg = response.readUTF();
-                if (msg.equals("hello")) {
-                    byte[] keyData = Base64.getDecoder().decode(response.readKey("key"));
-                    X509EncodedKeySpec spec = new X509EncodedKeySpec(keyData);
+            if (mode == OverflowMode.FAIL) return new ChannelFullException(peerOf(connection), backlog.pending());
+            //The event loop would be waiting for itself to drain the queue
+            if (connection.eventLoop().inEventLoop() || channel.eventLoop().inEventLoop()) continue;
 
-                    try {
-                        KeyFactory factory = KeyFactory.getInstance("RSA");
-                        future.complete(factory.generatePublic(spec));
-                    } catch (NoSuchAlgorithmException | InvalidKeySpecException ex) {
-                        future.completeExceptionally(ex);
-                    }
+            try {
+                if (!backlog.await(timeout, TimeUnit.MILLISECONDS)) {
+                    if (backlog.isClosed()) return new ClosedChannelException();
+                    return new TimeoutException("Timed out waiting for the outbound queue of " + peerOf(connection) + " to drain");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return ex;
+            }
+        }
+
+        return null;
+    }
+
+    private static long sizeOf(final WritableMessage message) {
+        int size = (message instanceof EncodableMessage ? ((EncodableMessage) message).encodedSize() : -1);
+        return (size < 0 ? message.toByteArray().length : size);
+    }
+
+    private static void releaseOnWrite(final OutboundBacklog backlog, final long size, final ChannelFuture write) {
+        if (backlog == null) return;
+        if (write == null) {
+            backlog.release(size);
+            return;
+        }
+
+        //Completes once the message has reached the network, or failed to
+        write.addListener((ChannelFutureListener) future -> backlog.release(size));
+    }
+
+    private void writabilityChanged(final Channel connection, final boolean writable) {
+        if (writabilityListeners.isEmpty()) return;
+
+        String peer = peerOf(connection);
+        for (WritabilityListener listener : writabilityListeners) {
+            listener.writabilityChanged(this, peer, writable);
+        }
+    }
+
+    /**
+     * Apply the flush mode after messages
+     * have been written. Must be called from the
+     * channel event loop
+     *
+     * @param messages the amount of written messages
+     */
+    private void written(final int messages) {
+        unflushedWrites += messages;
+        switch (flushMode) {
+            case IMMEDIATE:
+                flushPending();
+                break;
+            case BATCHED:
+                if (unflushedWrites >= flushBatchSize) {
+                    flushPending();
+                } else {
+                    //Whatever is left is sent at the end of the tick
+                    scheduleFlush();
+                }
+                break;
+            case END_OF_TICK:
+                scheduleFlush();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled || unflushed.isEmpty()) return;
+        flushScheduled = true;
+
+        EventLoop loop = channel.eventLoop();
+        if (loop instanceof SingleThreadEventLoop) {
+            //Runs once the loop has gone through every task it has queued
+            ((SingleThreadEventLoop) loop).executeAfterEventLoopIteration(flushTask);
+        } else {
+            loop.execute(flushTask);
+        }
+    }
+
+    private void flushPending() {
+        unflushedWrites = 0;
+        if (unflushed.isEmpty()) return;
+
+        for (Channel connection : unflushed) connection.flush();
+        unflushed.clear();
+    }
+
+    /**
+     * Tell the other sides the message
+     * is no longer awaited
+     *
+     * @param id the message ID
+     */
+    /*
+    Only the peers the request was sent to are told, so
+    a unicast request is cancelled on its own peer alone
+     */
+    private void sendCancel(final int id, final String target) {
+        this.channel.eventLoop().execute(() -> {
+            if (server && (target == null || target.equals("*"))) {
+                for (Channel channel : this.group) {
+                    channel.writeAndFlush(new WireFrame(Opcode.CANCEL, 0, channel.alloc().ioBuffer(4).writeInt(id)), channel.voidPromise());
                 }
+                return;
             }
+
+            Channel connection = connectionOf(target);
+            if (connection == null) return; //Disconnected since, it is not waiting for anything
+
+            connection.writeAndFlush(new WireFrame(Opcode.CANCEL, 0, connection.alloc().ioBuffer(4).writeInt(id)), connection.voidPromise());
         });
+    }
 
-        return future;
+    /**
+     * Mark a message as cancelled by the
+     * other side
+     *
+     * @param id the message ID
+     */
+    public void cancelReceived(final int id) {
+        if (cancelled.add(id)) {
+            runtime.timer().newTimeout((task) -> cancelled.remove(id), CANCEL_RETENTION, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Get if the sender of the message is no
+     * longer waiting for it, either because it has
+     * cancelled it or because its deadline has been
+     * reached
+     *
+     * @param message the received message
+     * @return if the message has been cancelled
+     */
+    @Override
+    public boolean isCancelled(final ReadOnlyMessage message) {
+        return message.isExpired() || (!cancelled.isEmpty() && cancelled.contains(message.id()));
     }
 
     /**
@@ -501,57 +1709,177 @@ public class NettyChannel implements NetChannel {
         return writeTo(null, message);
     }
 
-    /*public Future<ReadOnlyMessage> write(final NetFrame... frames) {
-        this.channel.eventLoop().submit(() -> {
-            if (server) {
-                for (Channel channel : this.group) {
-                    Iterator<NetFrame> channelPrivateIterator = Arrays.stream(frames.clone()).iterator();
-                    sendFramed(channel, channelPrivateIterator);
-                }
-            } else {
-                Iterator<NetFrame> serverPrivateIterator = Arrays.stream(frames.clone()).iterator();
-                sendFramed(channel, serverPrivateIterator);
-            }
+    /**
+     * Stream an encoded message, as {@link WritableMessage#toByteArray()}
+     * produces, to a target. The message is read from the source and
+     * sent in frames of {@link #getStreamFrameLength()} bytes while the
+     * connection can take them, so messages of any size are sent in the
+     * memory of a few frames. The target receives it as any other message
+     *
+     * @param id the target ID, which is ignored on clients
+     * @param source the encoded message source, which is closed
+     *               once the stream ends
+     * @param length the amount of bytes to read from the source
+     * @param encrypted if the frames must be sealed
+     * @return a future completed once the whole
+     * message has been written
+     */
+    public CompletableFuture<Void> stream(final String id, final ReadableByteChannel source, final long length, final boolean encrypted) {
+        return stream(id, source, length, encrypted, FrameStream.DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Stream an encoded message to a target, as
+     * {@link #stream(String, ReadableByteChannel, long, boolean)} does.
+     * Streams on the same connection are sent at the same time, each
+     * one taking a share of the connection proportional to its weight
+     *
+     * @param id the target ID, which is ignored on clients
+     * @param source the encoded message source, which is closed
+     *               once the stream ends
+     * @param length the amount of bytes to read from the source
+     * @param encrypted if the frames must be sealed
+     * @param weight the stream weight, from 1 to {@link FrameStream#MAX_WEIGHT}
+     * @return a future completed once the whole
+     * message has been written
+     */
+    public CompletableFuture<Void> stream(final String id, final ReadableByteChannel source, final long length, final boolean encrypted, final int weight) {
+        Channel connection = channel;
+        if (server) {
+            if (id == null || id.equals("*")) throw new IllegalArgumentException("A stream must have a single target");
+
+            connection = peers.get(id);
+            if (connection == null) throw new IllegalArgumentException("No peer connected with ID " + id);
+        }
+
+        FrameStream stream = new FrameStream(nextStreamId(), encrypted, source, length, streamFrameLength, weight);
+        connection.writeAndFlush(stream).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) stream.close(future.cause());
         });
 
-        return null;
-    }*/
+        return stream.completion();
+    }
 
-    /*
-    private void sendFramed(final Channel channel, final Iterator<NetFrame> iterator) {
-        if (iterator.hasNext()) {
-            NetFrame frame = iterator.next();
-            try (ByteArrayOutputStream out = new ByteArrayOutputStream(); ObjectOutputStream stream = new ObjectOutputStream(out)) {
-                stream.writeObject(frame);
-                stream.flush();
-
-                channel.writeAndFlush(Unpooled.copiedBuffer(out.toByteArray())).addListener((ChannelFutureListener) channelFuture -> {
-                    Throwable error = channelFuture.cause();
-                    if (error != null) {
-                        error.printStackTrace();
-                    }
+    /**
+     * Stream an encoded message to a target, as
+     * {@link #stream(String, ReadableByteChannel, long, boolean)} does
+     *
+     * @param id the target ID, which is ignored on clients
+     * @param source the encoded message source, which is closed
+     *               once the stream ends
+     * @param length the amount of bytes to read from the source
+     * @param encrypted if the frames must be sealed
+     * @return a future completed once the whole
+     * message has been written
+     */
+    public CompletableFuture<Void> stream(final String id, final InputStream source, final long length, final boolean encrypted) {
+        return stream(id, Channels.newChannel(source), length, encrypted);
+    }
 
-                    if (channelFuture.isSuccess()) {
-                        sendFramed(channel, iterator);
-                    }
-                });
-            } catch (IOException ignored) {
-            }
-        }
-    }*/
+    /**
+     * Get an ID for a new stream. Stream IDs
+     * are unique on the channel
+     *
+     * @return the stream ID
+     */
+    public int nextStreamId() {
+        return streamIds.incrementAndGet();
+    }
+
+    /**
+     * Get the max amount of message data
+     * each stream frame carries
+     *
+     * @return the stream frame length
+     */
+    public int getStreamFrameLength() {
+        return streamFrameLength;
+    }
+
+    /**
+     * Set the max amount of message data each
+     * stream frame carries. Smaller frames let the
+     * connection pause and resume the stream sooner.
+     * Written messages longer than a frame are streamed
+     * as well, so they do not delay the shorter ones
+     *
+     * @param frameLength the stream frame length
+     */
+    public void setStreamFrameLength(final int frameLength) {
+        if (frameLength <= 0) throw new IllegalArgumentException("Stream frame length must be positive");
+        this.streamFrameLength = frameLength;
+    }
+
+    /**
+     * Get the max amount of bytes each connection
+     * holds for streamed messages which have not been
+     * fully received
+     *
+     * @return the reassembly memory budget
+     */
+    public long getReassemblyMaxBytes() {
+        return reassemblyMaxBytes;
+    }
+
+    /**
+     * Get the time a streamed message has to be
+     * fully received before it is dropped
+     *
+     * @return the reassembly timeout in milliseconds
+     */
+    public long getReassemblyTimeout() {
+        return reassemblyTimeout;
+    }
+
+    /**
+     * Set the limits of the streamed messages which
+     * have not been fully received. Once a connection
+     * goes over the budget, its oldest incomplete messages
+     * are dropped. The limits apply to connections established
+     * after the call
+     *
+     * @param maxBytes the reassembly memory budget of each connection
+     * @param timeout the time a streamed message has to be
+     *                fully received
+     * @param unit the timeout unit
+     */
+    public void setReassemblyLimits(final long maxBytes, final long timeout, final TimeUnit unit) {
+        if (maxBytes <= 0 || timeout <= 0) throw new IllegalArgumentException("Reassembly limits must be positive");
+
+        this.reassemblyMaxBytes = maxBytes;
+        this.reassemblyTimeout = unit.toMillis(timeout);
+    }
+
+    /**
+     * Get the amount of streamed messages dropped
+     * before being fully received
+     *
+     * @return the dropped message count
+     */
+    public long getReassemblyEvictions() {
+        return reassemblyEvictions.sum();
+    }
+
+    /**
+     * Count streamed messages dropped before
+     * being fully received
+     *
+     * @param messages the amount of dropped messages
+     */
+    public void reassemblyEvicted(final long messages) {
+        reassemblyEvictions.add(messages);
+    }
 
     /**
      * Terminate the channel now
      */
     @Override
     public void terminateNow() {
-        this.channel.eventLoop().submit(() -> {
-            try {
-                channel.close().await();
-            } catch (InterruptedException ignored) {} finally {
-                bossGroup.shutdownGracefully();
-                workerGroup.shutdownGracefully();
-            }
+        inFlight.failAll(new ClosedChannelException());
+        shutdownDispatcher();
+        this.channel.eventLoop().execute(() -> {
+            flushPending();
+            close();
         });
     }
 
@@ -561,23 +1889,72 @@ public class NettyChannel implements NetChannel {
      * @return the termination task
      */
     @Override
-    public Future<Void> terminate() {
+    public ChannelFuture terminate() {
+        inFlight.failAll(new ClosedChannelException());
+        shutdownDispatcher();
+        close();
+
+        return channel.closeFuture();
+    }
+
+    private void close() {
+        //The connections share the runtime event loops, so they must be closed one by one
+        group.close();
+        channel.close().addListener((ChannelFutureListener) future -> releaseRuntime());
+    }
+
+    private void disconnected(final Channel connection) {
+        group.remove(connection);
+        peers.unregister(connection);
+
+        OutboundBacklog backlog = connection.attr(BACKLOG).get();
+        if (backlog != null) backlog.close();
+
+        OutboundBacklog streams = connection.attr(STREAM_BACKLOG).get();
+        if (streams != null) streams.close();
+    }
+
+    private void releaseRuntime() {
+        if (usesRuntimeLoops && released.compareAndSet(false, true)) runtime.release();
+    }
+
+    private synchronized void shutdownDispatcher() {
+        OrderedExecutor current = dispatcher;
+        if (current == null) return;
+
+        dispatcher = null;
+        executionMode = ExecutionMode.INLINE;
+        ((ExecutorService) current.executor()).shutdown();
+    }
+
+    private static ExecutorService newVirtualExecutor() {
         try {
-            return channel.closeFuture();
-        } finally {
-            bossGroup.shutdownGracefully();
-            workerGroup.shutdownGracefully();
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException ex) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+        } catch (ReflectiveOperationException ex) {
+            throw new RuntimeException(ex);
         }
     }
 
     /**
-     * Get the channel keys
+     * Get the channel identity
+     *
+     * @return the channel identity
+     */
+    public ChannelIdentity getIdentity() {
+        return identity;
+    }
+
+    /**
+     * Get the channel keys. If the channel identity
+     * is still being generated, this waits for it
      *
      * @return the channel keys
      */
     @Override
     public KeyPair channelKeys() {
-        return pair;
+        return identity.keys();
     }
 
     /**
@@ -591,56 +1968,97 @@ public class NettyChannel implements NetChannel {
     }
 
     /**
-     * Encrypt the message
+     * Encrypt the message. The message is sealed with a
+     * fresh key of the channel cipher suite, and the key
+     * is encrypted with the recipient key
      *
      * @param message the message to encrypt
+     * @param recipientKey the recipient public key
      * @return the encrypted message
      */
     public NetFrame encrypt(WritableMessage message, final PublicKey recipientKey) {
+        CipherSuite suite = cipherSuite;
         try {
-            KeyGenerator generator = KeyGenerator.getInstance("AES");
-            generator.init(256);
-            SecretKey sessionKey = generator.generateKey();
-
-            SecureRandom random = new SecureRandom();
-            byte[] iv = new byte[16];
-            random.nextBytes(iv);
-
-            Cipher rsaCipher = Cipher.getInstance("RSA");
-            rsaCipher.init(Cipher.ENCRYPT_MODE, recipientKey);
-            byte[] encryptedSession = rsaCipher.doFinal(sessionKey.getEncoded());
+            SecretKey contentKey = suite.generateKey();
+            byte[] nonce = new byte[suite.nonceLength()];
+            suite.randomNonce(nonce);
 
-            Cipher aesCipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            aesCipher.init(Cipher.ENCRYPT_MODE, sessionKey, new IvParameterSpec(iv));
-            byte[] encryptedData = aesCipher.doFinal(message.toByteArray());
+            byte[] encryptedKey = wrapKey(contentKey, recipientKey);
+            byte[] encryptedData = suite.seal(contentKey, nonce, null, message.toByteArray());
 
-            return new NetworkFrame(message.id(), message.encrypted(), 1, 1, encryptedSession, iv, encryptedData);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
-                 InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException ex) {
+            return new NetworkFrame(message.id(), message.encrypted(), 1, 1, encryptedKey, nonce, encryptedData);
+        } catch (GeneralSecurityException ex) {
             throw new RuntimeException(ex);
         }
     }
 
-    public byte[] decrypt(final NetFrame frame) {
+    /**
+     * Decrypt data which has been encrypted
+     * using only the channel keys
+     *
+     * @param mode the encryption mode the data was encrypted with
+     * @param data the data to decrypt
+     * @return the decrypted data
+     */
+    public byte[] decrypt(final EncryptMode mode, final byte[] data) {
         KeyPair pair = channelKeys();
-        Key key = pair.getPrivate();
+        Key key = (mode == EncryptMode.DECRYPT_FROM_EMISSION ? pair.getPrivate() : pair.getPublic());
 
         try {
-            Cipher rsaCipher = Cipher.getInstance("RSA");
+            Cipher rsaCipher = rsaCiphers.get();
             rsaCipher.init(Cipher.DECRYPT_MODE, key);
-            byte[] decryptedSession = rsaCipher.doFinal(frame.getKey());
 
-            SecretKey sessionKey = new SecretKeySpec(decryptedSession, 0, decryptedSession.length, "AES");
-            Cipher aesCipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            aesCipher.init(Cipher.DECRYPT_MODE, sessionKey, new IvParameterSpec(frame.getIv()));
+            return rsaCipher.doFinal(data);
+        } catch (GeneralSecurityException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 
-            byte[] encryptedData = new byte[frame.length()];
-            frame.read(encryptedData, 0);
+    /**
+     * Decrypt the frame
+     *
+     * @param frame the frame to decrypt
+     * @return the decrypted frame data
+     */
+    public byte[] decrypt(final NetFrame frame) {
+        byte[] encryptedData = new byte[frame.length()];
+        frame.read(encryptedData, 0);
 
-            return aesCipher.doFinal(encryptedData);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
-                InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException ex) {
+        try {
+            return cipherSuite.open(unwrapKey(frame.getKey()), frame.getIv(), null, encryptedData);
+        } catch (GeneralSecurityException ex) {
             throw new RuntimeException(ex);
         }
     }
+
+    /**
+     * Encrypt a content key of the channel
+     * cipher suite for the recipient
+     *
+     * @param key the content key
+     * @param recipientKey the recipient public key
+     * @return the encrypted key
+     * @throws GeneralSecurityException if the key cannot be encrypted
+     */
+    public byte[] wrapKey(final SecretKey key, final PublicKey recipientKey) throws GeneralSecurityException {
+        Cipher rsaCipher = rsaCiphers.get();
+        rsaCipher.init(Cipher.ENCRYPT_MODE, recipientKey);
+
+        return rsaCipher.doFinal(key.getEncoded());
+    }
+
+    /**
+     * Decrypt a content key which has been
+     * encrypted for this channel
+     *
+     * @param encryptedKey the encrypted key
+     * @return the content key
+     * @throws GeneralSecurityException if the key cannot be decrypted
+     */
+    public SecretKey unwrapKey(final byte[] encryptedKey) throws GeneralSecurityException {
+        Cipher rsaCipher = rsaCiphers.get();
+        rsaCipher.init(Cipher.DECRYPT_MODE, channelKeys().getPrivate());
+
+        return cipherSuite.createKey(rsaCipher.doFinal(encryptedKey));
+    }
 }
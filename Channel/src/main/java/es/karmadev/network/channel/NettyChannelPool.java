@@ -0,0 +1,365 @@
+package es.karmadev.network.channel;
+
+import es.karmadev.api.network.channel.ChannelHandler;
+import es.karmadev.api.network.channel.NetChannel;
+import es.karmadev.api.network.channel.OverflowMode;
+import es.karmadev.api.network.channel.WritabilityListener;
+import es.karmadev.api.network.message.ReadOnlyMessage;
+import es.karmadev.api.network.message.WritableMessage;
+import es.karmadev.network.security.ChannelIdentity;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.PromiseCombiner;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client channel which opens many connections to the same
+ * server. Each connection is a client {@link NettyChannel} with
+ * its own handshake, session and event loop, so encoding and crypto
+ * of a single client are spread over the runtime event loops instead
+ * of running on one thread.
+ * <p>
+ * Each write goes through one of the connections, following the pool
+ * {@link BalanceMode}. Connections whose outbound queue is full are
+ * skipped while any other can take the write. A request is answered
+ * on the connection it was sent through, which is the one waiting for
+ * its response, so responses always reach their request. Messages written
+ * through different connections may be received in a different order
+ */
+public class NettyChannelPool implements NetChannel {
+
+    private final NettyChannel[] members;
+    private final BalanceMode balance;
+    private final AtomicInteger turns = new AtomicInteger();
+
+    /**
+     * Initialize the pool
+     *
+     * @param address the server address
+     * @param port the server port
+     * @param size the amount of connections
+     */
+    public NettyChannelPool(final String address, final int port, final int size) throws InterruptedException {
+        this(address, port, size, BalanceMode.LEAST_LOADED);
+    }
+
+    /**
+     * Initialize the pool
+     *
+     * @param address the server address
+     * @param port the server port
+     * @param size the amount of connections
+     * @param balance how the writes are spread
+     *                over the connections
+     */
+    public NettyChannelPool(final String address, final int port, final int size, final BalanceMode balance) throws InterruptedException {
+        this(address, port, size, balance, ChannelIdentity.shared(), ChannelRuntime.shared());
+    }
+
+    /**
+     * Initialize the pool
+     *
+     * @param address the server address
+     * @param port the server port
+     * @param size the amount of connections
+     * @param balance how the writes are spread
+     *                over the connections
+     * @param identity the identity of every connection
+     * @param runtime the runtime the connections run on
+     */
+    public NettyChannelPool(final String address, final int port, final int size, final BalanceMode balance, final ChannelIdentity identity, final ChannelRuntime runtime) throws InterruptedException {
+        if (size <= 0) throw new IllegalArgumentException("Pool size must be positive");
+
+        this.balance = balance;
+        this.members = new NettyChannel[size];
+
+        int opened = 0;
+        try {
+            for (; opened < size; opened++) {
+                members[opened] = new NettyChannel(address, port, identity, runtime);
+            }
+        } catch (InterruptedException | RuntimeException ex) {
+            for (int i = 0; i < opened; i++) members[i].terminateNow();
+            throw ex;
+        }
+    }
+
+    /**
+     * Get the connections of the pool. Settings
+     * are applied to each connection
+     *
+     * @return the pool connections
+     */
+    public List<NettyChannel> members() {
+        return Collections.unmodifiableList(Arrays.asList(members));
+    }
+
+    /**
+     * Get the amount of connections
+     *
+     * @return the pool size
+     */
+    public int size() {
+        return members.length;
+    }
+
+    /**
+     * Get how the writes are spread
+     * over the connections
+     *
+     * @return the balance mode
+     */
+    public BalanceMode getBalanceMode() {
+        return balance;
+    }
+
+    /**
+     * Pick the connection the next write goes
+     * through. Useful for writes the pool does not
+     * offer, such as {@link NettyChannel#stream(String, java.nio.channels.ReadableByteChannel, long, boolean) streams}
+     *
+     * @return the connection
+     */
+    public NettyChannel next() {
+        int length = members.length;
+        if (length == 1) return members[0];
+
+        //Rotated on every pick, so ties do not always land on the first connection
+        int start = (turns.getAndIncrement() & Integer.MAX_VALUE) % length;
+        if (balance == BalanceMode.ROUND_ROBIN) {
+            for (int i = 0; i < length; i++) {
+                NettyChannel member = members[(start + i) % length];
+                if (member.isWritable(null)) return member;
+            }
+
+            return members[start];
+        }
+
+        NettyChannel least = null;
+        int leastLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < length; i++) {
+            NettyChannel member = members[(start + i) % length];
+            if (!member.isWritable(null)) continue;
+
+            int load = member.getInFlightCount();
+            if (load < leastLoad) {
+                least = member;
+                leastLoad = load;
+            }
+        }
+
+        return (least == null ? members[start] : least);
+    }
+
+    /**
+     * Get the channel ID. Each connection has
+     * an ID of its own, this is the ID of the first one
+     *
+     * @return the channel ID
+     */
+    @Override
+    public String id() {
+        return members[0].id();
+    }
+
+    /**
+     * Register a duplex channel on
+     * every connection
+     *
+     * @param channel the channel
+     */
+    @Override
+    public void register(final ChannelHandler channel) {
+        for (NettyChannel member : members) member.register(channel);
+    }
+
+    /**
+     * Register a duplex channel for a
+     * route on every connection
+     *
+     * @param route the route
+     * @param channel the channel
+     */
+    @Override
+    public void register(final String route, final ChannelHandler channel) {
+        for (NettyChannel member : members) member.register(route, channel);
+    }
+
+    /**
+     * Write a message for a specified target
+     *
+     * @param id the target ID
+     * @param message the message to write
+     * @return the message completion
+     */
+    @Override
+    public CompletableFuture<ReadOnlyMessage> writeTo(final String id, final WritableMessage message) {
+        return next().writeTo(id, message);
+    }
+
+    /**
+     * Write a message for a specified target, deciding
+     * what to do if the outbound queue is full
+     *
+     * @param id the target ID
+     * @param message the message to write
+     * @param mode what to do if the queue is full
+     * @return the message completion
+     */
+    @Override
+    public CompletableFuture<ReadOnlyMessage> writeTo(final String id, final WritableMessage message, final OverflowMode mode) {
+        return next().writeTo(id, message, mode);
+    }
+
+    /**
+     * Write a message on the channel
+     *
+     * @param message the message to write
+     * @return the message completion
+     */
+    @Override
+    public CompletableFuture<ReadOnlyMessage> write(final WritableMessage message) {
+        return next().write(message);
+    }
+
+    /**
+     * Write the messages on the channel. The messages
+     * go through the same connection, so they are still
+     * sent with a single flush
+     *
+     * @param messages the messages to write
+     * @return the completion of each message, in the
+     * same order as the messages
+     */
+    @Override
+    public List<CompletableFuture<ReadOnlyMessage>> writeAll(final Collection<? extends WritableMessage> messages) {
+        return next().writeAll(messages);
+    }
+
+    /**
+     * Send every message which has been
+     * written but not sent yet
+     */
+    @Override
+    public void flush() {
+        for (NettyChannel member : members) member.flush();
+    }
+
+    /**
+     * Get if any connection of the pool
+     * can take more writes
+     *
+     * @param peer ignored, as every connection
+     *             goes to the same server
+     * @return if the pool can take writes
+     */
+    @Override
+    public boolean isWritable(final String peer) {
+        for (NettyChannel member : members) {
+            if (member.isWritable(peer)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Add a writability listener to every connection.
+     * The listener is told about each connection apart
+     *
+     * @param listener the listener
+     */
+    @Override
+    public void addWritabilityListener(final WritabilityListener listener) {
+        for (NettyChannel member : members) member.addWritabilityListener(listener);
+    }
+
+    /**
+     * Remove a writability listener
+     *
+     * @param listener the listener
+     */
+    @Override
+    public void removeWritabilityListener(final WritabilityListener listener) {
+        for (NettyChannel member : members) member.removeWritabilityListener(listener);
+    }
+
+    /**
+     * Get if the sender of the message is no
+     * longer waiting for it
+     *
+     * @param message the received message
+     * @return if the message has been cancelled
+     */
+    @Override
+    public boolean isCancelled(final ReadOnlyMessage message) {
+        for (NettyChannel member : members) {
+            if (member.isCancelled(message)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the amount of requests waiting for
+     * their response on every connection
+     *
+     * @return the waiting request count
+     */
+    public int getInFlightCount() {
+        int count = 0;
+        for (NettyChannel member : members) count += member.getInFlightCount();
+
+        return count;
+    }
+
+    /**
+     * Terminate every connection now
+     */
+    @Override
+    public void terminateNow() {
+        for (NettyChannel member : members) member.terminateNow();
+    }
+
+    /**
+     * Terminate every connection
+     *
+     * @return the termination task
+     */
+    @Override
+    public Future<Void> terminate() {
+        PromiseCombiner combiner = new PromiseCombiner(ImmediateEventExecutor.INSTANCE);
+        for (NettyChannel member : members) combiner.add(member.terminate());
+
+        Promise<Void> done = ImmediateEventExecutor.INSTANCE.newPromise();
+        combiner.finish(done);
+
+        return done;
+    }
+
+    /**
+     * Get the channel keys
+     *
+     * @return the channel keys
+     */
+    @Override
+    public KeyPair channelKeys() {
+        return members[0].channelKeys();
+    }
+
+    /**
+     * Get the channel shared key
+     *
+     * @return the shared key
+     */
+    @Override
+    public PrivateKey sharedKey() {
+        return members[0].sharedKey();
+    }
+}
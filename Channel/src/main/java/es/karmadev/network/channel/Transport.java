@@ -0,0 +1,163 @@
+package es.karmadev.network.channel;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+
+/**
+ * Network transport used by the channels. Native
+ * transports avoid the selector wakeups and copies of
+ * the NIO transport, but are only available on some systems,
+ * so each transport is looked up at runtime. io_uring needs the
+ * netty incubator transport in the classpath
+ */
+public enum Transport {
+    /**
+     * Linux io_uring transport
+     */
+    IO_URING("io.netty.incubator.channel.uring.IOUring",
+            "io.netty.incubator.channel.uring.IOUringEventLoopGroup",
+            "io.netty.incubator.channel.uring.IOUringServerSocketChannel",
+            "io.netty.incubator.channel.uring.IOUringSocketChannel"),
+    /**
+     * Linux epoll transport
+     */
+    EPOLL("io.netty.channel.epoll.Epoll",
+            "io.netty.channel.epoll.EpollEventLoopGroup",
+            "io.netty.channel.epoll.EpollServerSocketChannel",
+            "io.netty.channel.epoll.EpollSocketChannel"),
+    /**
+     * BSD and macOS kqueue transport
+     */
+    KQUEUE("io.netty.channel.kqueue.KQueue",
+            "io.netty.channel.kqueue.KQueueEventLoopGroup",
+            "io.netty.channel.kqueue.KQueueServerSocketChannel",
+            "io.netty.channel.kqueue.KQueueSocketChannel"),
+    /**
+     * Java NIO transport, available everywhere
+     */
+    NIO(null,
+            "io.netty.channel.nio.NioEventLoopGroup",
+            "io.netty.channel.socket.nio.NioServerSocketChannel",
+            "io.netty.channel.socket.nio.NioSocketChannel");
+
+    private final Class<? extends EventLoopGroup> groupClass;
+    private final Class<? extends ServerChannel> serverClass;
+    private final Class<? extends Channel> socketClass;
+
+    Transport(final String availability, final String group, final String server, final String socket) {
+        Class<? extends EventLoopGroup> groupClass = null;
+        Class<? extends ServerChannel> serverClass = null;
+        Class<? extends Channel> socketClass = null;
+
+        try {
+            ClassLoader loader = Transport.class.getClassLoader();
+            boolean available = (availability == null ||
+                    (Boolean) Class.forName(availability, true, loader).getMethod("isAvailable").invoke(null));
+
+            if (available) {
+                groupClass = Class.forName(group, true, loader).asSubclass(EventLoopGroup.class);
+                serverClass = Class.forName(server, true, loader).asSubclass(ServerChannel.class);
+                socketClass = Class.forName(socket, true, loader).asSubclass(Channel.class);
+            }
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException ex) {
+            groupClass = null;
+        }
+
+        this.groupClass = groupClass;
+        this.serverClass = serverClass;
+        this.socketClass = socketClass;
+    }
+
+    /**
+     * Get the best transport available
+     * on this system
+     *
+     * @return the best transport
+     */
+    public static Transport best() {
+        for (Transport transport : values()) {
+            if (transport.isAvailable()) return transport;
+        }
+
+        return NIO;
+    }
+
+    /**
+     * Get the transport a channel
+     * is using
+     *
+     * @param channel the channel
+     * @return the channel transport
+     * @throws IllegalArgumentException if the channel does not
+     * use any of the known transports
+     */
+    public static Transport of(final Channel channel) {
+        for (Transport transport : values()) {
+            if (!transport.isAvailable()) continue;
+            if (transport.serverClass.isInstance(channel) || transport.socketClass.isInstance(channel)) return transport;
+        }
+
+        throw new IllegalArgumentException("Unknown transport for channel " + channel.getClass().getName());
+    }
+
+    /**
+     * Get if the transport can be used
+     * on this system
+     *
+     * @return if the transport is available
+     */
+    public boolean isAvailable() {
+        return groupClass != null;
+    }
+
+    /**
+     * Create an event loop group for
+     * this transport
+     *
+     * @param threads the amount of threads, or zero
+     *                for the netty default
+     * @return the event loop group
+     * @throws IllegalStateException if the transport is
+     * not available
+     */
+    public EventLoopGroup newGroup(final int threads) {
+        checkAvailable();
+
+        try {
+            return groupClass.getConstructor(int.class).newInstance(threads);
+        } catch (ReflectiveOperationException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Get the server channel class of
+     * this transport
+     *
+     * @return the server channel class
+     * @throws IllegalStateException if the transport is
+     * not available
+     */
+    public Class<? extends ServerChannel> serverChannel() {
+        checkAvailable();
+        return serverClass;
+    }
+
+    /**
+     * Get the client channel class of
+     * this transport
+     *
+     * @return the client channel class
+     * @throws IllegalStateException if the transport is
+     * not available
+     */
+    public Class<? extends Channel> socketChannel() {
+        checkAvailable();
+        return socketClass;
+    }
+
+    private void checkAvailable() {
+        if (!isAvailable()) throw new IllegalStateException("Transport " + name() + " is not available on this system");
+    }
+}
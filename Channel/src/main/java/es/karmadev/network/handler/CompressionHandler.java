@@ -0,0 +1,207 @@
+package es.karmadev.network.handler;
+
+import es.karmadev.network.channel.NettyChannel;
+import es.karmadev.network.util.VarInt;
+import es.karmadev.network.wire.Opcode;
+import es.karmadev.network.wire.WireFrame;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses outbound message frames with deflate, and inflates
+ * the inbound ones. Compression is only used on connections where
+ * both sides offered it on their handshake, and only for frames of
+ * at least the channel {@link NettyChannel#getCompressionThreshold() threshold}.
+ * Frames whose compressed form would not be smaller are sent as they are.
+ * <p>
+ * The handler sits between the stream scheduler and the session, so frames
+ * are compressed before they are sealed, and long messages are compressed
+ * chunk by chunk. A compressed payload is written as
+ * <pre>
+ * original length (varint) | raw deflate data
+ * </pre>
+ * Deflaters and inflaters hold native memory, so one of each is kept
+ * per thread (once per event loop) and reset after every frame
+ */
+public class CompressionHandler extends ChannelDuplexHandler {
+
+    /**
+     * The name of the compression offered
+     * on the handshake
+     */
+    public final static String ALGORITHM = "deflate";
+
+    private final static AttributeKey<Boolean> NEGOTIATED = AttributeKey.valueOf("securechanneling-compression");
+
+    private final static FastThreadLocal<Deflater> deflaters = new FastThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_SPEED, true);
+        }
+
+        @Override
+        protected void onRemoval(final Deflater deflater) {
+            deflater.end();
+        }
+    };
+    private final static FastThreadLocal<Inflater> inflaters = new FastThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+
+        @Override
+        protected void onRemoval(final Inflater inflater) {
+            inflater.end();
+        }
+    };
+
+    private final NettyChannel channel;
+
+    public CompressionHandler(final NettyChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Mark compression as agreed with
+     * the other side of a connection
+     *
+     * @param connection the connection
+     */
+    public static void markNegotiated(final Channel connection) {
+        connection.attr(NEGOTIATED).set(Boolean.TRUE);
+    }
+
+    /**
+     * Get if compression has been agreed with
+     * the other side of a connection
+     *
+     * @param connection the connection
+     * @return if frames can be compressed
+     */
+    public static boolean isNegotiated(final Channel connection) {
+        return Boolean.TRUE.equals(connection.attr(NEGOTIATED).get());
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws CorruptedFrameException {
+        if (!(msg instanceof WireFrame) || !((WireFrame) msg).hasFlag(WireFrame.FLAG_COMPRESSED)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        WireFrame frame = (WireFrame) msg;
+        try {
+            ByteBuf inflated = inflate(ctx.alloc(), frame.content(), channel.getMaxFrameLength());
+            ctx.fireChannelRead(new WireFrame(frame.opcode(), frame.flags() & ~WireFrame.FLAG_COMPRESSED, inflated, frame.receivedAt()));
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+        if (msg instanceof WireFrame && isNegotiated(ctx.channel())) {
+            ctx.write(compress(channel, ctx.alloc(), (WireFrame) msg), promise);
+            return;
+        }
+
+        ctx.write(msg, promise);
+    }
+
+    /**
+     * Compress a message or chunk frame, if it is big enough
+     * and compressing it makes it smaller
+     *
+     * @param channel the channel the frame is written on
+     * @param allocator the allocator to take the compressed buffer from
+     * @param frame the frame to compress, which is released
+     *              if a compressed frame is returned
+     * @return the compressed frame, or the same frame if it
+     * has not been compressed
+     */
+    public static WireFrame compress(final NettyChannel channel, final ByteBufAllocator allocator, final WireFrame frame) {
+        if ((frame.opcode() != Opcode.MESSAGE && frame.opcode() != Opcode.CHUNK) || frame.hasFlag(WireFrame.FLAG_COMPRESSED | WireFrame.FLAG_ENVELOPE)) return frame;
+
+        ByteBuf payload = frame.content();
+        int length = payload.readableBytes();
+        int header = VarInt.size(length);
+        if (length < channel.getCompressionThreshold() || length <= header + 1) return frame;
+
+        //Only worth keeping if it fits in less than the original payload
+        ByteBuf compressed = allocator.ioBuffer(length, length);
+        VarInt.write(compressed, length);
+
+        Deflater deflater = deflaters.get();
+        try {
+            deflater.setInput(payload.nioBuffer());
+            deflater.finish();
+
+            ByteBuffer output = compressed.nioBuffer(header, length - 1 - header);
+            while (!deflater.finished() && output.hasRemaining()) {
+                deflater.deflate(output);
+            }
+
+            if (!deflater.finished()) {
+                compressed.release();
+                channel.compressed(length, length);
+
+                return frame;
+            }
+
+            compressed.writerIndex(header + output.position());
+        } catch (RuntimeException ex) {
+            compressed.release();
+            throw ex;
+        } finally {
+            deflater.reset();
+        }
+
+        channel.compressed(length, compressed.readableBytes());
+        WireFrame result = new WireFrame(frame.opcode(), frame.flags() | WireFrame.FLAG_COMPRESSED, compressed);
+        frame.release();
+
+        return result;
+    }
+
+    private static ByteBuf inflate(final ByteBufAllocator allocator, final ByteBuf payload, final int maxLength) throws CorruptedFrameException {
+        int length = VarInt.read(payload);
+        if (length < 0 || length > maxLength) throw new CorruptedFrameException("Inflated length " + length + " exceeds the maximum of " + maxLength);
+
+        ByteBuf inflated = allocator.ioBuffer(length, length);
+        Inflater inflater = inflaters.get();
+        try {
+            inflater.setInput(payload.nioBuffer());
+
+            ByteBuffer output = inflated.nioBuffer(0, length);
+            while (!inflater.finished() && output.hasRemaining()) {
+                if (inflater.inflate(output) == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+            }
+
+            if (!inflater.finished() || output.position() != length) throw new CorruptedFrameException("Compressed payload does not match its length " + length);
+            inflated.writerIndex(length);
+
+            return inflated;
+        } catch (DataFormatException ex) {
+            inflated.release();
+            throw new CorruptedFrameException(ex);
+        } catch (RuntimeException ex) {
+            inflated.release();
+            throw ex;
+        } finally {
+            inflater.reset();
+        }
+    }
+}
@@ -1,92 +1,157 @@
 package es.karmadev.network.handler;
 
 import es.karmadev.api.network.message.ReadOnlyMessage;
-import es.karmadev.api.network.message.WritableMessage;
 import es.karmadev.api.network.message.frame.NetFrame;
 import es.karmadev.network.channel.NettyChannel;
 import es.karmadev.network.message.MessageConstructor;
+import es.karmadev.network.message.frame.FrameReassembler;
+import es.karmadev.network.security.PeerSession;
+import es.karmadev.network.util.VarInt;
+import es.karmadev.network.wire.Opcode;
+import es.karmadev.network.wire.WireFrame;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.ReferenceCountUtil;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-public class DecoderHandler extends ByteToMessageDecoder {
+public class DecoderHandler extends MessageToMessageDecoder<WireFrame> {
 
     private final NettyChannel channel;
+    private FrameReassembler reassembler;
 
     public DecoderHandler(final NettyChannel channel) {
         this.channel = channel;
     }
 
     @Override
-    protected void decode(final ChannelHandlerContext ctx, final ByteBuf byteBuf, final List<Object> list) {
-        byte[] data = new byte[byteBuf.readableBytes()];
-        byteBuf.readBytes(data);
-
+    protected void decode(final ChannelHandlerContext ctx, final WireFrame frame, final List<Object> list) {
         ReadOnlyMessage read = null;
-        try {
-            read = MessageConstructor.build(data);
+        if (frame.opcode() == Opcode.MESSAGE) {
+            read = MessageConstructor.wrap(frame.content(), frame.receivedAt());
             String initialBuffer = read.readUTF();
             if (initialBuffer != null && initialBuffer.equals("handshake-request")) {
                 String id = read.readUTF();
+                String key = read.readKey("key");
+                String sessionKey = read.readKey("session");
+                String suite = read.readKey("suite");
+                String signature = read.readKey("signature");
+                String compression = read.readKey("compression");
+                ReferenceCountUtil.release(read);
+
                 if (id == null) return; //Do not process
+                establishSession(ctx, id, key, sessionKey, suite, signature);
+                if (channel.isCompressionEnabled() && CompressionHandler.ALGORITHM.equals(compression)) {
+                    CompressionHandler.markNegotiated(ctx.channel());
+                }
 
                 if (channel.server) {
-                    channel.groupIds.put(ctx.channel().id().asShortText(), id);
-
-                    WritableMessage response = MessageConstructor.newOutMessage();
-                    response.writeUTF("handshake-request");
-                    response.writeUTF(channel.id());
-
-                    ctx.channel().writeAndFlush(Unpooled.copiedBuffer(response.toByteArray()));
+                    channel.peers.register(id, ctx.channel());
+                    ctx.channel().writeAndFlush(channel.createHandshake(ctx.channel()));
                 } else {
                     channel.serverId.update(id);
                 }
 
                 return;
             }
-
-            String target = read.readKey("for");
-            String sender = read.readKey("id");
-
-            if (target != null && !target.equals(channel.id())) {
-                System.out.println("[" + ctx.name() + "] Discarded a non-our packet from " + sender + " (" + target + ") We are: " + channel.id());
-                return;
-            }
-        } catch (RuntimeException ex) {
-            try (ByteArrayInputStream input = new ByteArrayInputStream(data); ObjectInputStream ois = new ObjectInputStream(input)) {
+        } else if (frame.opcode() == Opcode.CANCEL) {
+            if (frame.content().readableBytes() >= 4) channel.cancelReceived(frame.content().readInt());
+            return;
+        } else if (frame.opcode() == Opcode.CHUNK) {
+            read = compose(ctx, frame);
+        } else if (frame.opcode() == Opcode.SECURE_FRAME) {
+            try (ByteBufInputStream input = new ByteBufInputStream(frame.content()); ObjectInputStream ois = new ObjectInputStream(input)) {
                 Object object = ois.readObject();
                 if (object instanceof NetFrame) {
-                    NetFrame frame = (NetFrame) object;
+                    NetFrame netFrame = (NetFrame) object;
 
                     byte[] frameData;
-                    if (frame.encrypted()) {
-                        frameData = channel.decrypt(frame);
+                    if (netFrame.encrypted()) {
+                        frameData = channel.decrypt(netFrame);
                     } else {
-                        frameData = new byte[frame.length()];
-                        frame.read(frameData, 0);
+                        frameData = new byte[netFrame.length()];
+                        netFrame.read(frameData, 0);
                     }
 
-                    read = MessageConstructor.build(frameData);
-                    String target = read.readKey("for");
-                    String sender = read.readKey("id");
-
-                    if (target != null && !target.equals(channel.id())) {
-                        System.out.println("[" + ctx.name() + "] Discarded a non-our packet from " + sender + " (" + target + ") We are: " + channel.id());
-                        return;
-                    }
+                    read = MessageConstructor.wrap(Unpooled.wrappedBuffer(frameData), frame.receivedAt());
                 }
-            } catch (IOException | ClassNotFoundException ex2) {
-                ex2.printStackTrace();
+            } catch (IOException | ClassNotFoundException ex) {
+                ex.printStackTrace();
             }
         }
 
-        if (read != null)
-            list.add(read);
+        if (read == null) return;
+
+        String target = read.readKey("for");
+        if (target != null && !target.equals(channel.id())) {
+            String sender = read.readKey("id");
+            ReferenceCountUtil.release(read);
+
+            System.out.println("[" + ctx.name() + "] Discarded a non-our packet from " + sender + " (" + target + ") We are: " + channel.id());
+            return;
+        }
+
+        read.resetPointers();
+        list.add(read);
+    }
+
+    private ReadOnlyMessage compose(final ChannelHandlerContext ctx, final WireFrame frame) {
+        ByteBuf content = frame.content();
+        int id = content.readInt();
+        int position = VarInt.read(content);
+        int maxPosition = VarInt.read(content);
+
+        if (reassembler == null) reassembler = new FrameReassembler(channel.getReassemblyMaxBytes(), TimeUnit.MILLISECONDS.toNanos(channel.getReassemblyTimeout()));
+
+        long evicted = reassembler.evicted();
+        ByteBuf message;
+        try {
+            message = reassembler.add(ctx.alloc(), id, position, maxPosition, content, frame.receivedAt());
+        } finally {
+            if (reassembler.evicted() != evicted) channel.reassemblyEvicted(reassembler.evicted() - evicted);
+        }
+        if (message == null) return null;
+
+        try {
+            return MessageConstructor.wrap(message, frame.receivedAt());
+        } finally {
+            message.release();
+        }
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) throws Exception {
+        if (reassembler != null) reassembler.clear();
+        super.handlerRemoved(ctx);
+    }
+
+    private void establishSession(final ChannelHandlerContext ctx, final String id, final String key, final String sessionKey, final String suite, final String signature) {
+        PeerSession session = ctx.channel().attr(PeerSession.KEY).get();
+        if (session == null || session.ready().isDone()) return;
+
+        if (key == null || sessionKey == null || suite == null || signature == null) {
+            session.fail(new IllegalStateException("Side " + id + " did not offer a session"));
+            return;
+        }
+
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            PublicKey identity = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(decoder.decode(key)));
+
+            session.establish(identity, decoder.decode(sessionKey), suite, decoder.decode(signature));
+        } catch (GeneralSecurityException | IllegalArgumentException ex) {
+            session.fail(ex);
+        }
     }
 }
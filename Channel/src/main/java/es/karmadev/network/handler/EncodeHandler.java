@@ -1,23 +1,60 @@
 package es.karmadev.network.handler;
 
 import es.karmadev.api.network.message.WritableMessage;
+import es.karmadev.network.message.EncodableMessage;
+import es.karmadev.network.wire.Opcode;
+import es.karmadev.network.wire.WireFrame;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 
-public class EncodeHandler extends MessageToByteEncoder<WritableMessage> {
+import java.util.List;
+
+public class EncodeHandler extends MessageToMessageEncoder<WritableMessage> {
 
     /**
-     * Encode a message into a {@link ByteBuf}. This method will be called for each written message that can be handled
-     * by this encoder.
+     * Encode a message into a {@link WireFrame}. This method will be called for each written message that can be handled
+     * by this encoder. {@link EncodableMessage encodable messages} are written straight into a buffer taken from
+     * the channel allocator
      *
-     * @param ctx the {@link ChannelHandlerContext} which this {@link MessageToByteEncoder} belongs to
+     * @param ctx the {@link ChannelHandlerContext} which this {@link MessageToMessageEncoder} belongs to
      * @param msg the message to encode
-     * @param out the {@link ByteBuf} into which the encoded message will be written
+     * @param out the list into which the encoded frame will be added
      */
     @Override
-    protected void encode(final ChannelHandlerContext ctx, final WritableMessage msg, final ByteBuf out) {
-        out.writeBytes(Unpooled.copiedBuffer(msg.toByteArray()));
+    protected void encode(final ChannelHandlerContext ctx, final WritableMessage msg, final List<Object> out) {
+        out.add(frame(ctx.alloc(), msg));
+    }
+
+    /**
+     * Encode a message into a {@link WireFrame}. The frame
+     * can be written to many connections through its
+     * {@link WireFrame#retainedDuplicate() duplicates}, so
+     * the message is only encoded once
+     *
+     * @param allocator the allocator to take the payload buffer from
+     * @param msg the message to encode
+     * @return the encoded frame
+     */
+    public static WireFrame frame(final ByteBufAllocator allocator, final WritableMessage msg) {
+        ByteBuf payload;
+        if (msg instanceof EncodableMessage) {
+            EncodableMessage encodable = (EncodableMessage) msg;
+
+            int size = encodable.encodedSize();
+            payload = (size < 0 ? allocator.ioBuffer() : allocator.ioBuffer(size, size));
+            try {
+                encodable.encode(payload);
+            } catch (RuntimeException ex) {
+                payload.release();
+                throw ex;
+            }
+        } else {
+            payload = Unpooled.wrappedBuffer(msg.toByteArray());
+        }
+
+        return new WireFrame(Opcode.MESSAGE, (msg.encrypted() ? WireFrame.FLAG_ENCRYPTED : 0), payload);
     }
 }
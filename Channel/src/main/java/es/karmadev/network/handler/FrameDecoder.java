@@ -0,0 +1,58 @@
+package es.karmadev.network.handler;
+
+import es.karmadev.network.channel.NettyChannel;
+import es.karmadev.network.wire.Opcode;
+import es.karmadev.network.wire.WireFrame;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+/**
+ * Splits the inbound stream into {@link WireFrame frames}. A
+ * single read may produce zero, one or many frames; incomplete
+ * frames stay in the cumulation buffer until the rest arrives.
+ * Frame payloads are retained slices of the cumulation buffer,
+ * so no data is copied
+ */
+public class FrameDecoder extends ByteToMessageDecoder {
+
+    private final NettyChannel channel;
+
+    public FrameDecoder(final NettyChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    protected void decode(final ChannelHandlerContext ctx, final ByteBuf in, final List<Object> out) throws TooLongFrameException {
+        long receivedAt = System.nanoTime();
+        while (in.readableBytes() >= WireFrame.HEADER_LENGTH) {
+            int index = in.readerIndex();
+            int length = in.getInt(index);
+
+            int maxLength = channel.getMaxFrameLength();
+            if (length < 0 || length > maxLength) {
+                //The stream cannot be resynchronized, so drop everything
+                in.skipBytes(in.readableBytes());
+                ctx.close();
+
+                throw new TooLongFrameException("Frame length " + length + " exceeds the maximum of " + maxLength);
+            }
+
+            if (in.readableBytes() - WireFrame.HEADER_LENGTH < length) return;
+
+            Opcode opcode = Opcode.of(in.getByte(index + 4));
+            byte flags = in.getByte(index + 5);
+            in.skipBytes(WireFrame.HEADER_LENGTH);
+
+            if (opcode == null) {
+                in.skipBytes(length); //Unknown frame, possibly from a newer peer
+                continue;
+            }
+
+            out.add(new WireFrame(opcode, flags, in.readRetainedSlice(length), receivedAt));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package es.karmadev.network.handler;
+
+import es.karmadev.network.wire.WireFrame;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
+
+/**
+ * Writes the {@link WireFrame} header in front of
+ * the frame payload. The payload is passed through
+ * as is, so it is never copied
+ */
+@ChannelHandler.Sharable
+public class FrameEncoder extends MessageToMessageEncoder<WireFrame> {
+
+    /**
+     * The shared encoder instance
+     */
+    public final static FrameEncoder INSTANCE = new FrameEncoder();
+
+    private FrameEncoder() {}
+
+    @Override
+    protected void encode(final ChannelHandlerContext ctx, final WireFrame frame, final List<Object> out) {
+        ByteBuf payload = frame.content();
+
+        ByteBuf header = ctx.alloc().buffer(WireFrame.HEADER_LENGTH);
+        header.writeInt(payload.readableBytes());
+        header.writeByte(frame.opcode().code());
+        header.writeByte(frame.flags());
+
+        out.add(header);
+        out.add(payload.retain());
+    }
+}
@@ -1,13 +1,12 @@
 package es.karmadev.network.handler;
 
-import es.karmadev.api.network.channel.handler.InputChannel;
+import es.karmadev.api.network.channel.ExecutionMode;
 import es.karmadev.api.network.message.ReadOnlyMessage;
-import es.karmadev.api.network.message.WritableMessage;
 import es.karmadev.network.channel.NettyChannel;
-import es.karmadev.network.message.MessageConstructor;
-import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
 
 public class InboundProcessHandler extends ChannelInboundHandlerAdapter {
 
@@ -17,31 +16,53 @@ public class InboundProcessHandler extends ChannelInboundHandlerAdapter {
         this.channel = channel;
     }
 
-    @Override
-    public void channelActive(ChannelHandlerContext ctx) {
-        WritableMessage handshakeRequest = MessageConstructor.newOutMessage();
-        handshakeRequest.writeUTF("handshake-request");
-        handshakeRequest.writeUTF(channel.id());
-
-        ctx.channel().writeAndFlush(Unpooled.copiedBuffer(handshakeRequest.toByteArray()));
-    }
-
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof ReadOnlyMessage) {
             ReadOnlyMessage message = (ReadOnlyMessage) msg;
 
-            channel.getHandlerList().forEach((handler) -> {
-                handler.handle(message);
-                message.resetPointers();
+            try {
+                //Nobody is waiting for the message anymore, so do not spend time on it
+                if (channel.isCancelled(message)) {
+                    ReferenceCountUtil.release(message);
+                    return;
+                }
+                if (channel.completeRequest(message)) message.resetPointers();
+            } catch (RuntimeException ex) {
+                ReferenceCountUtil.release(message);
+                throw ex;
+            }
+
+            if (channel.getExecutionMode() == ExecutionMode.INLINE) {
+                try {
+                    channel.dispatch(message);
+                } finally {
+                    ReferenceCountUtil.release(message);
+                }
 
-                if (handler instanceof InputChannel) {
-                    InputChannel in = (InputChannel) handler;
-                    in.receive(channel, message);
+                return;
+            }
 
-                    message.resetPointers();
+            String id = message.readKey("id");
+            Object sender = (id == null ? ctx.channel().id() : id);
+            boolean accepted = channel.execute(sender, () -> {
+                try {
+                    //The message may have waited long enough to be cancelled or expire
+                    if (!channel.isCancelled(message)) channel.dispatch(message);
+                } catch (Throwable ex) {
+                    //Reported through the pipeline, as inline failures are
+                    ctx.fireExceptionCaught(ex);
+                } finally {
+                    ReferenceCountUtil.release(message);
                 }
             });
+
+            ChannelConfig config = ctx.channel().config();
+            if (!accepted && config.isAutoRead()) {
+                //Stop reading the sender until the handlers catch up, instead of queueing its messages without limit
+                config.setAutoRead(false);
+                channel.whenDispatchDrained(sender, () -> config.setAutoRead(true));
+            }
         }
     }
 }
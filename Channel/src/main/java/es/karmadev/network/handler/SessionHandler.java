@@ -0,0 +1,189 @@
+package es.karmadev.network.handler;
+
+import es.karmadev.network.channel.NettyChannel;
+import es.karmadev.network.security.ChannelIdentity;
+import es.karmadev.network.security.EnvelopeFrame;
+import es.karmadev.network.security.PeerSession;
+import es.karmadev.network.wire.WireFrame;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Seals outbound frames flagged as {@link WireFrame#FLAG_ENCRYPTED encrypted}
+ * with the connection {@link PeerSession}, and opens the inbound ones. Frames
+ * written before the session is established are held until it is.
+ * {@link EnvelopeFrame Envelopes} are already sealed, so only their content
+ * key is sealed with the session.
+ * <p>
+ * The session is started, and the handshake sent, once the channel identity
+ * is available; inbound frames received before that are held as well, so the
+ * event loop never waits for the identity to be generated
+ */
+public class SessionHandler extends ChannelDuplexHandler {
+
+    private final NettyChannel channel;
+    private final Queue<PendingFrame> pending = new ArrayDeque<>();
+    private final Queue<Object> received = new ArrayDeque<>();
+    private PeerSession session;
+    private boolean handshakeSent;
+
+    public SessionHandler(final NettyChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        ChannelIdentity identity = channel.getIdentity();
+        if (identity.isReady()) {
+            try {
+                startSession(ctx, identity.keys());
+            } catch (GeneralSecurityException | RuntimeException ex) {
+                ctx.fireExceptionCaught(ex);
+                ctx.close();
+            }
+            return;
+        }
+
+        identity.ready().whenComplete((keys, error) -> ctx.executor().execute(() -> {
+            if (ctx.isRemoved()) return;
+
+            try {
+                if (error != null) throw error;
+                startSession(ctx, keys);
+            } catch (Throwable ex) {
+                ctx.fireExceptionCaught(ex);
+                ctx.close();
+            }
+        }));
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) {
+        ctx.fireChannelActive();
+        sendHandshake(ctx);
+    }
+
+    private void startSession(final ChannelHandlerContext ctx, final KeyPair keys) throws GeneralSecurityException {
+        session = new PeerSession(channel.server, keys, channel.getCipherSuite(), channel.getSessionMaxMessages(), channel.getSessionMaxBytes());
+        ctx.channel().attr(PeerSession.KEY).set(session);
+
+        session.ready().whenComplete((established, error) -> ctx.executor().execute(() -> {
+            if (error != null) {
+                failPending(error);
+                ctx.close();
+                return;
+            }
+
+            //Sealed directly, write would queue them again while the queue is not empty
+            PendingFrame frame;
+            while ((frame = pending.poll()) != null) {
+                seal(ctx, frame.frame, frame.promise);
+            }
+            ctx.flush();
+        }));
+
+        sendHandshake(ctx);
+
+        Object message;
+        while ((message = received.poll()) != null) {
+            channelRead(ctx, message);
+        }
+    }
+
+    private void sendHandshake(final ChannelHandlerContext ctx) {
+        if (handshakeSent || session == null || !ctx.channel().isActive()) return;
+
+        handshakeSent = true;
+        ctx.channel().writeAndFlush(channel.createHandshake(ctx.channel()));
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) {
+        failPending(new ClosedChannelException());
+
+        Object message;
+        while ((message = received.poll()) != null) {
+            ReferenceCountUtil.release(message);
+        }
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws GeneralSecurityException {
+        if (session == null) {
+            received.add(msg);
+            return;
+        }
+
+        if (!(msg instanceof WireFrame) || !((WireFrame) msg).hasFlag(WireFrame.FLAG_ENCRYPTED)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        WireFrame frame = (WireFrame) msg;
+        try {
+            ByteBuf opened = (frame.hasFlag(WireFrame.FLAG_ENVELOPE) ?
+                    EnvelopeFrame.open(ctx.alloc(), session, frame.opcode().code(), frame.content()) :
+                    session.open(ctx.alloc(), frame.opcode().code(), frame.content()));
+            ctx.fireChannelRead(new WireFrame(frame.opcode(), frame.flags() & ~(WireFrame.FLAG_ENCRYPTED | WireFrame.FLAG_ENVELOPE), opened, frame.receivedAt()));
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+        if (!(msg instanceof WireFrame) || !((WireFrame) msg).hasFlag(WireFrame.FLAG_ENCRYPTED)) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        WireFrame frame = (WireFrame) msg;
+        if (session == null || !session.isEstablished() || !pending.isEmpty()) {
+            pending.add(new PendingFrame(frame, promise));
+            return;
+        }
+
+        seal(ctx, frame, promise);
+    }
+
+    private void seal(final ChannelHandlerContext ctx, final WireFrame frame, final ChannelPromise promise) {
+        try {
+            ByteBuf sealed = (frame instanceof EnvelopeFrame ?
+                    ((EnvelopeFrame) frame).sealFor(ctx.alloc(), session) :
+                    session.seal(ctx.alloc(), frame.opcode().code(), frame.content()));
+            ctx.write(new WireFrame(frame.opcode(), frame.flags(), sealed), promise);
+        } catch (GeneralSecurityException | RuntimeException ex) {
+            promise.tryFailure(ex);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private void failPending(final Throwable error) {
+        PendingFrame frame;
+        while ((frame = pending.poll()) != null) {
+            frame.frame.release();
+            frame.promise.tryFailure(error);
+        }
+    }
+
+    private static class PendingFrame {
+
+        private final WireFrame frame;
+        private final ChannelPromise promise;
+
+        private PendingFrame(final WireFrame frame, final ChannelPromise promise) {
+            this.frame = frame;
+            this.promise = promise;
+        }
+    }
+}
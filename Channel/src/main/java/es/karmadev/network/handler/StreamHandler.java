@@ -0,0 +1,170 @@
+package es.karmadev.network.handler;
+
+import es.karmadev.network.channel.NettyChannel;
+import es.karmadev.network.message.frame.FrameStream;
+import es.karmadev.network.wire.Opcode;
+import es.karmadev.network.wire.WireFrame;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the frames written on a connection. Message frames
+ * which fit in a {@link NettyChannel#getStreamFrameLength() stream frame}
+ * are written straight away, so requests and control traffic (handshakes,
+ * discovery, cancellations) never wait for a long message. Longer messages
+ * and {@link FrameStream frame streams} are sent in chunks, which are
+ * only produced while the connection is writable; once its outbound
+ * buffer goes over the high watermark the streams pause, and they resume
+ * when it drains under the low watermark, so a slow receiver never makes
+ * the sender buffer a whole stream.
+ * <p>
+ * Streams are multiplexed: they take turns in order, and each turn a
+ * stream writes as many frames as its {@link FrameStream#weight() weight},
+ * so many messages share the connection in proportion to their weights
+ */
+public class StreamHandler extends ChannelDuplexHandler {
+
+    private final static int MAX_FRAMES = 16; //Frames written per loop iteration
+
+    private final NettyChannel channel;
+    private final Queue<FrameStream> streams = new ArrayDeque<>();
+    private int turn; //Frames the head stream has written on its current turn
+    private boolean resumeScheduled;
+
+    public StreamHandler(final NettyChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
+        FrameStream stream;
+        if (msg instanceof FrameStream) {
+            stream = (FrameStream) msg;
+        } else if (msg instanceof WireFrame && isSplit((WireFrame) msg)) {
+            WireFrame frame = (WireFrame) msg;
+            stream = new FrameStream(channel.nextStreamId(), frame.hasFlag(WireFrame.FLAG_ENCRYPTED), frame.content(), channel.getStreamFrameLength(), FrameStream.DEFAULT_WEIGHT);
+        } else {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        if (!promise.isVoid()) {
+            stream.completion().whenComplete((done, error) -> {
+                if (error != null) {
+                    promise.tryFailure(error);
+                } else {
+                    promise.trySuccess();
+                }
+            });
+        }
+
+        streams.add(stream);
+        resume(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(final ChannelHandlerContext ctx) {
+        //Usually fired from within a flush, resuming right away would keep the loop writing without reading
+        if (ctx.channel().isWritable()) scheduleResume(ctx);
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(final ChannelHandlerContext ctx) {
+        failAll(new ClosedChannelException());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) {
+        failAll(new ClosedChannelException());
+    }
+
+    private boolean isSplit(final WireFrame frame) {
+        //Compressed and enveloped frames are shared by every connection of a broadcast
+        return frame.opcode() == Opcode.MESSAGE && !frame.hasFlag(WireFrame.FLAG_COMPRESSED | WireFrame.FLAG_ENVELOPE)
+                && frame.content().readableBytes() > channel.getStreamFrameLength();
+    }
+
+    private void scheduleResume(final ChannelHandlerContext ctx) {
+        if (resumeScheduled || streams.isEmpty()) return;
+        resumeScheduled = true;
+
+        //Scheduled tasks run on the next loop iteration, after the pending reads
+        ctx.executor().schedule(() -> {
+            resumeScheduled = false;
+            resume(ctx);
+        }, 0, TimeUnit.NANOSECONDS);
+    }
+
+    private void resume(final ChannelHandlerContext ctx) {
+        int written = 0;
+
+        FrameStream stream;
+        while (ctx.channel().isWritable() && (stream = streams.peek()) != null) {
+            if (written == MAX_FRAMES) {
+                //Compressed frames may take long to fill the outbound buffer, the rest is left for the next iteration
+                scheduleResume(ctx);
+                break;
+            }
+
+            if (stream.completion().isDone()) {
+                //Failed while one of its frames was being written
+                next();
+                continue;
+            }
+
+            WireFrame frame;
+            try {
+                frame = stream.next(ctx.alloc());
+            } catch (Throwable ex) {
+                next();
+                stream.close(ex);
+                continue;
+            }
+
+            written++;
+            if (!stream.isEnd()) {
+                ctx.write(frame).addListener(failOnError(stream));
+                if (++turn >= stream.weight()) {
+                    //Turn over, the stream waits behind the others
+                    next();
+                    streams.add(stream);
+                }
+                continue;
+            }
+
+            //The stream is done once its last frame has been written
+            next();
+            FrameStream ended = stream;
+            ctx.write(frame).addListener((ChannelFutureListener) future -> ended.close(future.cause()));
+        }
+
+        if (written > 0) ctx.flush();
+    }
+
+    private void next() {
+        streams.poll();
+        turn = 0;
+    }
+
+    private static ChannelFutureListener failOnError(final FrameStream stream) {
+        return (future) -> {
+            if (!future.isSuccess()) stream.close(future.cause());
+        };
+    }
+
+    private void failAll(final Throwable error) {
+        FrameStream stream;
+        while ((stream = streams.poll()) != null) {
+            stream.close(error);
+        }
+    }
+}
@@ -0,0 +1,650 @@
+package es.karmadev.network.message;
+
+import es.karmadev.network.util.VarInt;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary message codec. A message is written as:
+ * <pre>
+ * magic (1) | version (1) | id (4) | flags (1) [| time to live in ms (4)] [| varint length, route]
+ * numbers:    varint count, then (tag, value) per number
+ * characters: varint count, then varint per character
+ * bytes:      varint count, then (varint length + 1, data) per entry, 0 being null
+ * keys:       varint count, then (varint length, key, varint length + 1, value) per key
+ * </pre>
+ * Integral numbers are written as zig-zag variable length
+ * integers, so small values take a single byte; var ints skip the
+ * zig-zag, so non-negative values up to 127 take a single byte. The time to
+ * live is only present when the message has a deadline, and is
+ * relative so it does not depend on the clocks of both sides. The
+ * route is only present when the message has one, and sits in the
+ * header so the receiver can dispatch without decoding the message
+ */
+final class BinaryMessageCodec {
+
+    static final byte MAGIC = (byte) 0xCB;
+    static final byte VERSION = 1;
+
+    static final byte FLAG_ENCRYPTED = 0x01;
+    static final byte FLAG_DEADLINE = 0x02;
+    static final byte FLAG_ROUTE = 0x04;
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_BYTE = 1;
+    static final byte TAG_SHORT = 2;
+    static final byte TAG_INT = 3;
+    static final byte TAG_LONG = 4;
+    static final byte TAG_FLOAT = 5;
+    static final byte TAG_DOUBLE = 6;
+    static final byte TAG_BIG_INTEGER = 7;
+    static final byte TAG_BIG_DECIMAL = 8;
+    static final byte TAG_VARINT = 9;
+
+    private BinaryMessageCodec() {}
+
+    /**
+     * Get if the buffer readable data starts
+     * with a binary message
+     *
+     * @param buffer the buffer
+     * @return if the buffer contains a binary message
+     */
+    static boolean isBinary(final ByteBuf buffer) {
+        return buffer.readableBytes() >= 2 && buffer.getByte(buffer.readerIndex()) == MAGIC;
+    }
+
+    /**
+     * Get the exact amount of bytes the message
+     * will take once encoded
+     *
+     * @param message the message
+     * @return the encoded size
+     */
+    static int sizeOf(final SimpleWriteMessage message) {
+        int size = (message.hasDeadline() ? 11 : 7) + sizeOfRoute(message.route());
+
+        size += sizeOf(message.numbers);
+        size += sizeOf(message.characters, message.characterCount);
+
+        int byteCount = usedSlots(message.bytes);
+        size += VarInt.size(byteCount);
+        for (int i = 0; i < byteCount; i++) size += sizeOf(message.bytes[i]);
+
+        return size + sizeOf(message.keys);
+    }
+
+    /**
+     * Encode the message into the buffer
+     *
+     * @param message the message to encode
+     * @param buffer the buffer to write to
+     */
+    static void encode(final SimpleWriteMessage message, final ByteBuf buffer) {
+        writeHeader(buffer, message.id(), message.encrypted(), message.hasDeadline(), message.deadline(), message.route());
+
+        writeNumbers(buffer, message.numbers);
+        writeCharacters(buffer, message.characters, message.characterCount);
+
+        int byteCount = usedSlots(message.bytes);
+        VarInt.write(buffer, byteCount);
+        for (int i = 0; i < byteCount; i++) writeBytes(buffer, message.bytes[i]);
+
+        writeKeys(buffer, message.keys);
+    }
+
+    /**
+     * Encode the message data into the buffer
+     *
+     * @param data the data to encode
+     * @param buffer the buffer to write to
+     */
+    static void encode(final WritableReadableData data, final ByteBuf buffer) {
+        writeHeader(buffer, data.id, data.encrypted, data.hasDeadline, data.deadline, data.route);
+
+        writeNumbers(buffer, data.numbers);
+        writeCharacters(buffer, data.characters, data.characterCount);
+
+        int byteCount = usedSlots(data.bytes);
+        VarInt.write(buffer, byteCount);
+        for (int i = 0; i < byteCount; i++) writeBytes(buffer, data.bytes.get(i));
+
+        writeKeys(buffer, data.keys);
+    }
+
+    /**
+     * Decode a message from the buffer
+     *
+     * @param buffer the buffer to read from
+     * @return the decoded message data
+     * @throws CorruptedFrameException if the buffer does not
+     * contain a valid binary message
+     */
+    static WritableReadableData decode(final ByteBuf buffer) throws CorruptedFrameException {
+        if (buffer.readByte() != MAGIC) throw new CorruptedFrameException("Invalid data to decode");
+
+        byte version = buffer.readByte();
+        if (version != VERSION) throw new CorruptedFrameException("Unsupported message version " + version);
+
+        int id = buffer.readInt();
+        byte flags = buffer.readByte();
+        WritableReadableData data = new WritableReadableData(id, (flags & FLAG_ENCRYPTED) != 0);
+        if ((flags & FLAG_DEADLINE) != 0) {
+            data.hasDeadline = true;
+            data.deadline = readDeadline(buffer, System.nanoTime());
+        }
+        if ((flags & FLAG_ROUTE) != 0) data.route = readRoute(buffer);
+
+        int numbers = readCount(buffer);
+        for (int i = 0; i < numbers; i++) readNumber(buffer, data.numbers);
+
+        int characters = readCount(buffer);
+        data.characters = new char[characters];
+        data.characterCount = characters;
+        for (int i = 0; i < characters; i++) data.characters[i] = (char) VarInt.read(buffer);
+
+        int bytes = readCount(buffer);
+        for (int i = 0; i < bytes; i++) data.bytes.add(readBytes(buffer));
+
+        int keys = readCount(buffer);
+        for (int i = 0; i < keys; i++) {
+            String key = readString(buffer, readLength(buffer));
+            byte[] value = readBytes(buffer);
+
+            data.keys.put(key, (value == null ? null : new String(value, StandardCharsets.UTF_8)));
+        }
+
+        return data;
+    }
+
+    /**
+     * Read the time to live of a message and
+     * turn it into a local deadline
+     *
+     * @param buffer the buffer to read from
+     * @param receivedAt the moment the message was read, in
+     *                   {@link System#nanoTime()} time
+     * @return the deadline, in {@link System#nanoTime()} time
+     */
+    static long readDeadline(final ByteBuf buffer, final long receivedAt) {
+        return receivedAt + TimeUnit.MILLISECONDS.toNanos(buffer.readInt());
+    }
+
+    /**
+     * Read the route of a message
+     *
+     * @param buffer the buffer to read from
+     * @return the message route
+     */
+    static String readRoute(final ByteBuf buffer) {
+        return readString(buffer, readLength(buffer));
+    }
+
+    /**
+     * Get the time to live left before the deadline,
+     * rounded up to the next millisecond
+     *
+     * @param deadline the deadline, in {@link System#nanoTime()} time
+     * @return the time to live in milliseconds
+     */
+    static int timeToLive(final long deadline) {
+        long left = deadline - System.nanoTime();
+        if (left <= 0) return 0;
+
+        return (int) Math.min(Integer.MAX_VALUE, (left + 999_999) / 1_000_000);
+    }
+
+    /**
+     * Get the time left before the deadline
+     *
+     * @param deadline the deadline, in {@link System#nanoTime()} time
+     * @param unit the unit to get the time in
+     * @return the time left
+     */
+    static long timeLeft(final long deadline, final TimeUnit unit) {
+        return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private static void writeHeader(final ByteBuf buffer, final int id, final boolean encrypted, final boolean hasDeadline, final long deadline, final String route) {
+        buffer.writeByte(MAGIC);
+        buffer.writeByte(VERSION);
+        buffer.writeInt(id);
+        buffer.writeByte((encrypted ? FLAG_ENCRYPTED : 0) | (hasDeadline ? FLAG_DEADLINE : 0) | (route != null ? FLAG_ROUTE : 0));
+        if (hasDeadline) buffer.writeInt(timeToLive(deadline));
+        if (route != null) {
+            int length = ByteBufUtil.utf8Bytes(route);
+            VarInt.write(buffer, length);
+            ByteBufUtil.reserveAndWriteUtf8(buffer, route, length);
+        }
+    }
+
+    private static int sizeOfRoute(final String route) {
+        if (route == null) return 0;
+
+        int length = ByteBufUtil.utf8Bytes(route);
+        return VarInt.size(length) + length;
+    }
+
+    private static int sizeOf(final NumberList numbers) {
+        int count = numbers.size();
+        int size = VarInt.size(count) + count; //Every number has a tag
+        for (int i = 0; i < count; i++) {
+            long value = numbers.bits(i);
+            switch (numbers.tag(i)) {
+                case TAG_NULL:
+                    break;
+                case TAG_BYTE:
+                    size++;
+                    break;
+                case TAG_SHORT:
+                case TAG_INT:
+                    size += VarInt.size(VarInt.zigZag((int) value));
+                    break;
+                case TAG_VARINT:
+                    size += VarInt.size((int) value);
+                    break;
+                case TAG_LONG:
+                    size += VarInt.size(VarInt.zigZag(value));
+                    break;
+                case TAG_FLOAT:
+                    size += 4;
+                    break;
+                case TAG_DOUBLE:
+                    size += 8;
+                    break;
+                case TAG_BIG_INTEGER: {
+                    int length = ((BigInteger) numbers.object(i)).toByteArray().length;
+                    size += VarInt.size(length) + length;
+                    break;
+                }
+                default: {
+                    BigDecimal decimal = (BigDecimal) numbers.object(i);
+                    int length = decimal.unscaledValue().toByteArray().length;
+                    size += VarInt.size(VarInt.zigZag(decimal.scale())) + VarInt.size(length) + length;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    private static void writeNumbers(final ByteBuf buffer, final NumberList numbers) {
+        int count = numbers.size();
+        VarInt.write(buffer, count);
+        for (int i = 0; i < count; i++) {
+            byte tag = numbers.tag(i);
+            long value = numbers.bits(i);
+
+            buffer.writeByte(tag);
+            switch (tag) {
+                case TAG_NULL:
+                    break;
+                case TAG_BYTE:
+                    buffer.writeByte((int) value);
+                    break;
+                case TAG_SHORT:
+                case TAG_INT:
+                    VarInt.write(buffer, VarInt.zigZag((int) value));
+                    break;
+                case TAG_VARINT:
+                    VarInt.write(buffer, (int) value);
+                    break;
+                case TAG_LONG:
+                    VarInt.write(buffer, VarInt.zigZag(value));
+                    break;
+                case TAG_FLOAT:
+                    buffer.writeInt((int) value);
+                    break;
+                case TAG_DOUBLE:
+                    buffer.writeLong(value);
+                    break;
+                case TAG_BIG_INTEGER: {
+                    byte[] data = ((BigInteger) numbers.object(i)).toByteArray();
+                    VarInt.write(buffer, data.length);
+                    buffer.writeBytes(data);
+                    break;
+                }
+                default: {
+                    BigDecimal decimal = (BigDecimal) numbers.object(i);
+                    byte[] data = decimal.unscaledValue().toByteArray();
+                    VarInt.write(buffer, VarInt.zigZag(decimal.scale()));
+                    VarInt.write(buffer, data.length);
+                    buffer.writeBytes(data);
+                }
+            }
+        }
+    }
+
+    private static void readNumber(final ByteBuf buffer, final NumberList numbers) {
+        int start = buffer.readerIndex();
+        byte tag = buffer.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                numbers.append(tag, 0);
+                return;
+            case TAG_BYTE:
+                numbers.append(tag, buffer.readByte());
+                return;
+            case TAG_SHORT:
+                numbers.append(tag, (short) VarInt.unZigZag(VarInt.read(buffer)));
+                return;
+            case TAG_INT:
+                numbers.append(tag, VarInt.unZigZag(VarInt.read(buffer)));
+                return;
+            case TAG_VARINT:
+                numbers.append(tag, VarInt.read(buffer));
+                return;
+            case TAG_LONG:
+                numbers.append(tag, VarInt.unZigZag(VarInt.readLong(buffer)));
+                return;
+            case TAG_FLOAT:
+                numbers.append(tag, buffer.readInt());
+                return;
+            case TAG_DOUBLE:
+                numbers.append(tag, buffer.readLong());
+                return;
+            default:
+                buffer.readerIndex(start);
+                numbers.add(readNumber(buffer));
+        }
+    }
+
+    private static int sizeOf(final char[] characters, final int count) {
+        int size = VarInt.size(count);
+        for (int i = 0; i < count; i++) size += VarInt.size((int) characters[i]);
+
+        return size;
+    }
+
+    private static void writeCharacters(final ByteBuf buffer, final char[] characters, final int count) {
+        VarInt.write(buffer, count);
+        for (int i = 0; i < count; i++) VarInt.write(buffer, (int) characters[i]);
+    }
+
+    static Number readNumber(final ByteBuf buffer) {
+        byte tag = buffer.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_BYTE:
+                return buffer.readByte();
+            case TAG_SHORT:
+                return (short) VarInt.unZigZag(VarInt.read(buffer));
+            case TAG_INT:
+                return VarInt.unZigZag(VarInt.read(buffer));
+            case TAG_VARINT:
+                return VarInt.read(buffer);
+            case TAG_LONG:
+                return VarInt.unZigZag(VarInt.readLong(buffer));
+            case TAG_FLOAT:
+                return buffer.readFloat();
+            case TAG_DOUBLE:
+                return buffer.readDouble();
+            case TAG_BIG_INTEGER:
+                return new BigInteger(ByteBufUtil.getBytes(buffer.readSlice(readLength(buffer))));
+            case TAG_BIG_DECIMAL:
+                int scale = VarInt.unZigZag(VarInt.read(buffer));
+                BigInteger unscaled = new BigInteger(ByteBufUtil.getBytes(buffer.readSlice(readLength(buffer))));
+
+                return new BigDecimal(unscaled, scale);
+            default:
+                throw new CorruptedFrameException("Unknown number tag " + tag);
+        }
+    }
+
+    /**
+     * Read a number entry as an int, converting
+     * it as {@link Number#intValue()} does
+     *
+     * @param buffer the buffer to read from
+     * @return the number value
+     * @throws NullPointerException if the number is null
+     */
+    static int readInt(final ByteBuf buffer) {
+        int start = buffer.readerIndex();
+        byte tag = buffer.readByte();
+        switch (tag) {
+            case TAG_FLOAT:
+                return (int) buffer.readFloat();
+            case TAG_DOUBLE:
+                return (int) buffer.readDouble();
+            default:
+                buffer.readerIndex(start);
+                return (int) readLong(buffer);
+        }
+    }
+
+    /**
+     * Read a number entry as a long, converting
+     * it as {@link Number#longValue()} does
+     *
+     * @param buffer the buffer to read from
+     * @return the number value
+     * @throws NullPointerException if the number is null
+     */
+    static long readLong(final ByteBuf buffer) {
+        int start = buffer.readerIndex();
+        byte tag = buffer.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                buffer.readerIndex(start);
+                throw new NullPointerException("The next number is null");
+            case TAG_BYTE:
+                return buffer.readByte();
+            case TAG_SHORT:
+            case TAG_INT:
+                return VarInt.unZigZag(VarInt.read(buffer));
+            case TAG_VARINT:
+                return VarInt.read(buffer);
+            case TAG_LONG:
+                return VarInt.unZigZag(VarInt.readLong(buffer));
+            case TAG_FLOAT:
+                return (long) buffer.readFloat();
+            case TAG_DOUBLE:
+                return (long) buffer.readDouble();
+            default:
+                buffer.readerIndex(start);
+                return readNumber(buffer).longValue();
+        }
+    }
+
+    /**
+     * Read a number entry as a double, converting
+     * it as {@link Number#doubleValue()} does
+     *
+     * @param buffer the buffer to read from
+     * @return the number value
+     * @throws NullPointerException if the number is null
+     */
+    static double readDouble(final ByteBuf buffer) {
+        int start = buffer.readerIndex();
+        byte tag = buffer.readByte();
+        switch (tag) {
+            case TAG_FLOAT:
+                return buffer.readFloat();
+            case TAG_DOUBLE:
+                return buffer.readDouble();
+            case TAG_BIG_INTEGER:
+            case TAG_BIG_DECIMAL:
+                buffer.readerIndex(start);
+                return readNumber(buffer).doubleValue();
+            default:
+                buffer.readerIndex(start);
+                return readLong(buffer);
+        }
+    }
+
+    /**
+     * Skip a number entry
+     *
+     * @param buffer the buffer to read from
+     */
+    static void skipNumber(final ByteBuf buffer) {
+        byte tag = buffer.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return;
+            case TAG_BYTE:
+                buffer.skipBytes(1);
+                return;
+            case TAG_SHORT:
+            case TAG_INT:
+            case TAG_VARINT:
+                VarInt.read(buffer);
+                return;
+            case TAG_LONG:
+                VarInt.readLong(buffer);
+                return;
+            case TAG_FLOAT:
+                buffer.skipBytes(4);
+                return;
+            case TAG_DOUBLE:
+                buffer.skipBytes(8);
+                return;
+            case TAG_BIG_INTEGER:
+                buffer.skipBytes(readLength(buffer));
+                return;
+            case TAG_BIG_DECIMAL:
+                VarInt.read(buffer);
+                buffer.skipBytes(readLength(buffer));
+                return;
+            default:
+                throw new CorruptedFrameException("Unknown number tag " + tag);
+        }
+    }
+
+    /**
+     * Skip a byte entry, returning its length
+     *
+     * @param buffer the buffer to read from
+     * @return the entry length, or -1 if the
+     * entry is null
+     */
+    static int skipBytes(final ByteBuf buffer) {
+        int length = VarInt.read(buffer) - 1;
+        if (length < 0) return -1;
+
+        checkReadable(buffer, length);
+        buffer.skipBytes(length);
+
+        return length;
+    }
+
+    private static int sizeOf(final byte[] bytes) {
+        if (bytes == null) return 1;
+        return VarInt.size(bytes.length + 1) + bytes.length;
+    }
+
+    private static void writeBytes(final ByteBuf buffer, final byte[] bytes) {
+        if (bytes == null) {
+            VarInt.write(buffer, 0);
+            return;
+        }
+
+        VarInt.write(buffer, bytes.length + 1);
+        buffer.writeBytes(bytes);
+    }
+
+    static byte[] readBytes(final ByteBuf buffer) {
+        int length = VarInt.read(buffer);
+        if (length == 0) return null;
+
+        length--;
+        checkReadable(buffer, length);
+
+        byte[] bytes = new byte[length];
+        buffer.readBytes(bytes);
+
+        return bytes;
+    }
+
+    private static int sizeOf(final Map<String, String> keys) {
+        int size = VarInt.size(keys.size());
+        for (Map.Entry<String, String> entry : keys.entrySet()) {
+            int keyLength = ByteBufUtil.utf8Bytes(entry.getKey());
+            size += VarInt.size(keyLength) + keyLength;
+
+            String value = entry.getValue();
+            if (value == null) {
+                size++;
+            } else {
+                int valueLength = ByteBufUtil.utf8Bytes(value);
+                size += VarInt.size(valueLength + 1) + valueLength;
+            }
+        }
+
+        return size;
+    }
+
+    private static void writeKeys(final ByteBuf buffer, final Map<String, String> keys) {
+        VarInt.write(buffer, keys.size());
+        for (Map.Entry<String, String> entry : keys.entrySet()) {
+            String key = entry.getKey();
+            int keyLength = ByteBufUtil.utf8Bytes(key);
+            VarInt.write(buffer, keyLength);
+            ByteBufUtil.reserveAndWriteUtf8(buffer, key, keyLength);
+
+            String value = entry.getValue();
+            if (value == null) {
+                VarInt.write(buffer, 0);
+            } else {
+                int valueLength = ByteBufUtil.utf8Bytes(value);
+                VarInt.write(buffer, valueLength + 1);
+                ByteBufUtil.reserveAndWriteUtf8(buffer, value, valueLength);
+            }
+        }
+    }
+
+    private static String readString(final ByteBuf buffer, final int length) {
+        checkReadable(buffer, length);
+
+        String value = buffer.toString(buffer.readerIndex(), length, StandardCharsets.UTF_8);
+        buffer.skipBytes(length);
+
+        return value;
+    }
+
+    static int readCount(final ByteBuf buffer) {
+        int count = VarInt.read(buffer);
+        //Every entry takes at least one byte, so this rejects bogus counts before allocating
+        checkReadable(buffer, count);
+
+        return count;
+    }
+
+    static int readLength(final ByteBuf buffer) {
+        int length = VarInt.read(buffer);
+        checkReadable(buffer, length);
+
+        return length;
+    }
+
+    static void checkReadable(final ByteBuf buffer, final int length) {
+        if (length < 0 || length > buffer.readableBytes())
+            throw new CorruptedFrameException("Declared length " + length + " exceeds the " + buffer.readableBytes() + " remaining bytes");
+    }
+
+    private static int usedSlots(final byte[][] slots) {
+        for (int i = slots.length - 1; i >= 0; i--) {
+            if (slots[i] != null) return i + 1;
+        }
+
+        return 0;
+    }
+
+    private static int usedSlots(final List<byte[]> data) {
+        for (int i = data.size() - 1; i >= 0; i--) {
+            if (data.get(i) != null) return i + 1;
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,472 @@
+package es.karmadev.network.message;
+
+import es.karmadev.api.network.message.ReadOnlyMessage;
+import es.karmadev.network.util.VarInt;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.AbstractReferenceCounted;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A read only message backed by the buffer it
+ * has been received in. Only the section offsets are
+ * decoded when the message is created, every value is
+ * decoded when it is read. The message owns its buffer
+ * and must be released once it is no longer used
+ */
+public class BufferReadMessage extends AbstractReferenceCounted implements ReadOnlyMessage {
+
+    private final ByteBuf buffer;
+    private final int id;
+    private boolean encrypted;
+    private final boolean hasDeadline;
+    private long deadline;
+    private String route;
+
+    private final int numberStart;
+    private final int numberCount;
+    private final int charStart;
+    private final int charCount;
+    private final int byteStart;
+    private final int byteCount;
+    private final int keyStart;
+    private final int keyCount;
+
+    private int numberCursor;
+    private int numberIndex;
+    private int charCursor;
+    private int charIndex;
+    private int byteCursor;
+    private int byteIndex;
+
+    /**
+     * Initialize the message. The message takes
+     * ownership of the buffer
+     *
+     * @param buffer the buffer containing exactly one
+     *               binary message
+     * @throws CorruptedFrameException if the buffer does not contain
+     * a valid binary message
+     */
+    public BufferReadMessage(final ByteBuf buffer) throws CorruptedFrameException {
+        this(buffer, System.nanoTime());
+    }
+
+    /**
+     * Initialize the message. The message takes
+     * ownership of the buffer
+     *
+     * @param buffer the buffer containing exactly one
+     *               binary message
+     * @param receivedAt the moment the message was read, in
+     *                   {@link System#nanoTime()} time
+     * @throws CorruptedFrameException if the buffer does not contain
+     * a valid binary message
+     */
+    public BufferReadMessage(final ByteBuf buffer, final long receivedAt) throws CorruptedFrameException {
+        this.buffer = buffer;
+
+        try {
+            if (buffer.readByte() != BinaryMessageCodec.MAGIC) throw new CorruptedFrameException("Invalid data to decode");
+
+            byte version = buffer.readByte();
+            if (version != BinaryMessageCodec.VERSION) throw new CorruptedFrameException("Unsupported message version " + version);
+
+            id = buffer.readInt();
+            byte flags = buffer.readByte();
+            encrypted = (flags & BinaryMessageCodec.FLAG_ENCRYPTED) != 0;
+            hasDeadline = (flags & BinaryMessageCodec.FLAG_DEADLINE) != 0;
+            if (hasDeadline) deadline = BinaryMessageCodec.readDeadline(buffer, receivedAt);
+            if ((flags & BinaryMessageCodec.FLAG_ROUTE) != 0) route = BinaryMessageCodec.readRoute(buffer);
+
+            numberCount = BinaryMessageCodec.readCount(buffer);
+            numberStart = buffer.readerIndex();
+            for (int i = 0; i < numberCount; i++) BinaryMessageCodec.skipNumber(buffer);
+
+            charCount = BinaryMessageCodec.readCount(buffer);
+            charStart = buffer.readerIndex();
+            for (int i = 0; i < charCount; i++) VarInt.read(buffer);
+
+            byteCount = BinaryMessageCodec.readCount(buffer);
+            byteStart = buffer.readerIndex();
+            for (int i = 0; i < byteCount; i++) BinaryMessageCodec.skipBytes(buffer);
+
+            keyCount = BinaryMessageCodec.readCount(buffer);
+            keyStart = buffer.readerIndex();
+            for (int i = 0; i < keyCount; i++) {
+                buffer.skipBytes(BinaryMessageCodec.readLength(buffer));
+                BinaryMessageCodec.skipBytes(buffer);
+            }
+        } catch (IndexOutOfBoundsException ex) {
+            buffer.release();
+            throw new CorruptedFrameException("Truncated message", ex);
+        } catch (RuntimeException ex) {
+            buffer.release();
+            throw ex;
+        }
+
+        resetPointers();
+    }
+
+    /**
+     * Network message id
+     *
+     * @return the message id
+     */
+    @Override
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Get if the message is encrypted
+     *
+     * @return if the message has been encrypted
+     */
+    @Override
+    public boolean encrypted() {
+        return encrypted;
+    }
+
+    /**
+     * Set the message encryption status
+     *
+     * @param status the encryption status
+     */
+    @Override
+    public void setEncryption(final boolean status) {
+        this.encrypted = status;
+    }
+
+    /**
+     * Get the message route
+     *
+     * @return the message route, or null if the
+     * message has no route
+     */
+    @Override
+    public String route() {
+        return route;
+    }
+
+    /**
+     * Get the time left before the message
+     * expires
+     *
+     * @param unit the unit to get the time in
+     * @return the time left, or {@link Long#MAX_VALUE} if
+     * the message has no deadline
+     */
+    @Override
+    public long timeLeft(final TimeUnit unit) {
+        if (!hasDeadline) return Long.MAX_VALUE;
+        return BinaryMessageCodec.timeLeft(deadline, unit);
+    }
+
+    /**
+     * Read the next number from the message
+     *
+     * @return the next number
+     */
+    @Override
+    public Number readNumber() {
+        if (numberIndex >= numberCount) throw new IndexOutOfBoundsException();
+
+        buffer.readerIndex(numberCursor);
+        Number number = BinaryMessageCodec.readNumber(buffer);
+
+        numberCursor = buffer.readerIndex();
+        numberIndex++;
+
+        return number;
+    }
+
+    /**
+     * Read the next number as an int, without
+     * boxing it
+     *
+     * @return the next number
+     */
+    @Override
+    public int readInt() {
+        if (numberIndex >= numberCount) throw new IndexOutOfBoundsException();
+
+        buffer.readerIndex(numberCursor);
+        int value = BinaryMessageCodec.readInt(buffer);
+
+        numberCursor = buffer.readerIndex();
+        numberIndex++;
+
+        return value;
+    }
+
+    /**
+     * Read the next number as a long, without
+     * boxing it
+     *
+     * @return the next number
+     */
+    @Override
+    public long readLong() {
+        if (numberIndex >= numberCount) throw new IndexOutOfBoundsException();
+
+        buffer.readerIndex(numberCursor);
+        long value = BinaryMessageCodec.readLong(buffer);
+
+        numberCursor = buffer.readerIndex();
+        numberIndex++;
+
+        return value;
+    }
+
+    /**
+     * Read the next number as a float
+     *
+     * @return the next number
+     */
+    @Override
+    public float readFloat() {
+        return (float) readDouble();
+    }
+
+    /**
+     * Read the next number as a double, without
+     * boxing it
+     *
+     * @return the next number
+     */
+    @Override
+    public double readDouble() {
+        if (numberIndex >= numberCount) throw new IndexOutOfBoundsException();
+
+        buffer.readerIndex(numberCursor);
+        double value = BinaryMessageCodec.readDouble(buffer);
+
+        numberCursor = buffer.readerIndex();
+        numberIndex++;
+
+        return value;
+    }
+
+    /**
+     * Read the next number as a boolean
+     *
+     * @return if the next number is not zero
+     */
+    @Override
+    public boolean readBoolean() {
+        return readDouble() != 0;
+    }
+
+    /**
+     * Read the next variable length int
+     *
+     * @return the next number
+     */
+    @Override
+    public int readVarInt() {
+        return readInt();
+    }
+
+    /**
+     * Read the next character from the message
+     *
+     * @return the next character
+     */
+    @Override
+    public char readCharacter() {
+        if (charIndex >= charCount) throw new IndexOutOfBoundsException();
+
+        buffer.readerIndex(charCursor);
+        char character = (char) VarInt.read(buffer);
+
+        charCursor = buffer.readerIndex();
+        charIndex++;
+
+        return character;
+    }
+
+    /**
+     * Read the next UTF sequence from the message
+     *
+     * @return the next UTF sequence, or null if
+     * there are no more sequences
+     */
+    @Override
+    public String readUTF() {
+        ByteBuf slice = readSlice();
+        if (slice == null) return null;
+
+        return slice.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read the next byte sequence as a view of
+     * the message buffer. The view is only valid while
+     * the message has not been released
+     *
+     * @return the next byte sequence, or null if the
+     * sequence is null or there are no more sequences
+     */
+    public ByteBuf readSlice() {
+        if (byteIndex >= byteCount) return null;
+
+        buffer.readerIndex(byteCursor);
+        int length = VarInt.read(buffer) - 1;
+
+        ByteBuf slice = (length < 0 ? null : buffer.slice(buffer.readerIndex(), length));
+        byteCursor = buffer.readerIndex() + Math.max(length, 0);
+        byteIndex++;
+
+        return slice;
+    }
+
+    /**
+     * Read the next byte sequence without copying it.
+     * The view is only valid while the message has not
+     * been released
+     *
+     * @return a read only view of the next byte sequence, or
+     * null if the sequence is null or there are no more sequences
+     */
+    @Override
+    public ByteBuffer readBuffer() {
+        ByteBuf slice = readSlice();
+        if (slice == null) return null;
+
+        return slice.nioBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * Read the key value
+     *
+     * @param key the key
+     * @return the value
+     */
+    @Override
+    public String readKey(final String key) {
+        int index = keyStart;
+        for (int i = 0; i < keyCount; i++) {
+            buffer.readerIndex(index);
+
+            int keyLength = VarInt.read(buffer);
+            boolean matches = keyEquals(buffer.readerIndex(), keyLength, key);
+            buffer.skipBytes(keyLength);
+
+            int valueLength = VarInt.read(buffer) - 1;
+            if (matches) {
+                return (valueLength < 0 ? null : buffer.toString(buffer.readerIndex(), valueLength, StandardCharsets.UTF_8));
+            }
+
+            index = buffer.readerIndex() + Math.max(valueLength, 0);
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the next byte length
+     *
+     * @return the next byte length
+     */
+    @Override
+    public int nextByteLength() {
+        if (byteIndex >= byteCount) return -1;
+
+        buffer.readerIndex(byteCursor);
+        return Math.max(VarInt.read(buffer) - 1, -1);
+    }
+
+    /**
+     * Read the byte array into the output
+     *
+     * @param output the output
+     */
+    @Override
+    public void read(final byte[] output) {
+        ByteBuf slice = readSlice();
+        if (slice == null) return;
+
+        slice.getBytes(0, output, 0, Math.min(output.length, slice.readableBytes()));
+    }
+
+    /**
+     * Build the read only message into a
+     * byte array, so it can be sent into
+     * another read only message
+     *
+     * @return the message bytes
+     */
+    @Override
+    public byte[] toByteArray() {
+        byte[] data = ByteBufUtil.getBytes(buffer, 0, buffer.writerIndex());
+        data[6] = (byte) (encrypted ? data[6] | BinaryMessageCodec.FLAG_ENCRYPTED : data[6] & ~BinaryMessageCodec.FLAG_ENCRYPTED);
+        if (hasDeadline) {
+            int timeToLive = BinaryMessageCodec.timeToLive(deadline);
+            data[7] = (byte) (timeToLive >>> 24);
+            data[8] = (byte) (timeToLive >>> 16);
+            data[9] = (byte) (timeToLive >>> 8);
+            data[10] = (byte) timeToLive;
+        }
+
+        return data;
+    }
+
+    /**
+     * Reset the message pointers
+     */
+    @Override
+    public void resetPointers() {
+        numberCursor = numberStart;
+        numberIndex = 0;
+        charCursor = charStart;
+        charIndex = 0;
+        byteCursor = byteStart;
+        byteIndex = 0;
+    }
+
+    @Override
+    public BufferReadMessage touch(final Object hint) {
+        buffer.touch(hint);
+        return this;
+    }
+
+    @Override
+    protected void deallocate() {
+        buffer.release();
+    }
+
+    @Override
+    public String toString() {
+        return new SimpleReadMessage(BinaryMessageCodec.decode(buffer.duplicate().readerIndex(0))).toString();
+    }
+
+    private boolean keyEquals(final int index, final int length, final String key) {
+        int characters = key.length();
+        for (int i = 0; i < characters; i++) {
+            if (key.charAt(i) >= 0x80) return encodedKeyEquals(index, length, key);
+        }
+
+        if (length != characters) return false;
+        for (int i = 0; i < length; i++) {
+            if (buffer.getByte(index + i) != (byte) key.charAt(i)) return false;
+        }
+
+        return true;
+    }
+
+    private boolean encodedKeyEquals(final int index, final int length, final String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length != length) return false;
+
+        for (int i = 0; i < length; i++) {
+            if (buffer.getByte(index + i) != bytes[i]) return false;
+        }
+
+        return true;
+    }
+}
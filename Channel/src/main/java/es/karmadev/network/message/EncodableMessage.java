@@ -0,0 +1,28 @@
+package es.karmadev.network.message;
+
+import es.karmadev.api.network.message.WritableMessage;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A writable message which is able to encode
+ * itself directly into a buffer, without building
+ * an intermediate byte array first
+ */
+public interface EncodableMessage extends WritableMessage {
+
+    /**
+     * Get the exact amount of bytes the
+     * message takes once encoded
+     *
+     * @return the encoded size, or -1 if it
+     * cannot be known before encoding
+     */
+    int encodedSize();
+
+    /**
+     * Encode the message into the buffer
+     *
+     * @param buffer the buffer to write to
+     */
+    void encode(final ByteBuf buffer);
+}
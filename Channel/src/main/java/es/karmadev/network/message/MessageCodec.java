@@ -0,0 +1,53 @@
+package es.karmadev.network.message;
+
+/**
+ * Message wire codec. Defines how messages
+ * are written to and read from bytes
+ */
+public enum MessageCodec {
+    /**
+     * Compact tagged binary format. Only
+     * binary messages are accepted
+     */
+    BINARY(false, false),
+    /**
+     * Writes the binary format, but is still able
+     * to read messages written with java serialization
+     * by older peers
+     */
+    COMPATIBLE(true, false),
+    /**
+     * Writes and reads messages using java
+     * serialization, as older versions did. Binary
+     * messages are still accepted
+     */
+    LEGACY(true, true);
+
+    private final boolean readLegacy;
+    private final boolean writeLegacy;
+
+    MessageCodec(final boolean readLegacy, final boolean writeLegacy) {
+        this.readLegacy = readLegacy;
+        this.writeLegacy = writeLegacy;
+    }
+
+    /**
+     * Get if the codec accepts the legacy
+     * serialized form
+     *
+     * @return if the codec reads legacy data
+     */
+    public boolean readsLegacy() {
+        return readLegacy;
+    }
+
+    /**
+     * Get if the codec writes the legacy
+     * serialized form
+     *
+     * @return if the codec writes legacy data
+     */
+    public boolean writesLegacy() {
+        return writeLegacy;
+    }
+}
@@ -2,12 +2,38 @@ package es.karmadev.network.message;
 
 import es.karmadev.api.network.message.ReadOnlyMessage;
 import es.karmadev.api.network.message.WritableMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * Message constructor
  */
 public class MessageConstructor {
 
+    private static volatile MessageCodec codec = MessageCodec.BINARY;
+
+    /**
+     * Set the codec used to write and
+     * read messages
+     *
+     * @param codec the message codec
+     */
+    public static void setCodec(final MessageCodec codec) {
+        if (codec == null) throw new IllegalArgumentException("Message codec cannot be null");
+        MessageConstructor.codec = codec;
+    }
+
+    /**
+     * Get the codec used to write and
+     * read messages
+     *
+     * @return the message codec
+     */
+    public static MessageCodec getCodec() {
+        return codec;
+    }
+
     /**
      * Create a new out message
      *
@@ -37,4 +63,63 @@ public class MessageConstructor {
     public static ReadOnlyMessage build(final byte[] data) {
         return new SimpleReadMessage(data);
     }
+
+    /**
+     * Build a read only message from the
+     * buffer readable data
+     *
+     * @param buffer the buffer containing the message
+     * @return the message
+     */
+    public static ReadOnlyMessage build(final ByteBuf buffer) {
+        return new SimpleReadMessage(buffer);
+    }
+
+    /**
+     * Wrap the buffer readable data into a read only
+     * message. Binary messages are read lazily from the buffer
+     * itself, so the returned message holds a reference to it
+     * and must be released with {@link ReferenceCountUtil#release(Object)}
+     * once it is no longer used
+     *
+     * @param buffer the buffer containing the message
+     * @return the message
+     */
+    public static ReadOnlyMessage wrap(final ByteBuf buffer) {
+        return wrap(buffer, System.nanoTime());
+    }
+
+    /**
+     * Wrap the buffer readable data into a read only
+     * message, as {@link #wrap(ByteBuf)} does
+     *
+     * @param buffer the buffer containing the message
+     * @param receivedAt the moment the message was read, in
+     *                   {@link System#nanoTime()} time. The message
+     *                   deadline counts from this moment
+     * @return the message
+     */
+    public static ReadOnlyMessage wrap(final ByteBuf buffer, final long receivedAt) {
+        if (BinaryMessageCodec.isBinary(buffer)) {
+            return new BufferReadMessage(buffer.retainedSlice(), receivedAt);
+        }
+
+        return new SimpleReadMessage(buffer);
+    }
+
+    /**
+     * Detach the message from any buffer it might
+     * be reading from, so it can be kept after it has
+     * been released
+     *
+     * @param message the message to detach
+     * @return the detached message
+     */
+    public static ReadOnlyMessage detach(final ReadOnlyMessage message) {
+        if (message instanceof BufferReadMessage) {
+            return new BufferReadMessage(Unpooled.wrappedBuffer(message.toByteArray()));
+        }
+
+        return message;
+    }
 }
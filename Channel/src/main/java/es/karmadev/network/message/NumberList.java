@@ -0,0 +1,260 @@
+package es.karmadev.network.message;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The numbers of a message, kept without boxing. Each number is
+ * stored as its {@link BinaryMessageCodec} tag and the bits of its
+ * value; only the numbers which do not fit in 64 bits (big integers
+ * and decimals) are kept as objects, on the side. The storage grows
+ * by half of its size, so writing a number takes amortized constant
+ * time and no allocation
+ */
+final class NumberList {
+
+    private final static byte[] NO_TAGS = new byte[0];
+    private final static long[] NO_VALUES = new long[0];
+
+    private byte[] tags = NO_TAGS;
+    private long[] values = NO_VALUES;
+    private Number[] objects; //Only allocated once a big number is added
+    private int size;
+
+    NumberList() {}
+
+    NumberList(final NumberList other) {
+        size = other.size;
+        tags = Arrays.copyOf(other.tags, size);
+        values = Arrays.copyOf(other.values, size);
+        if (other.objects != null) objects = Arrays.copyOf(other.objects, size);
+    }
+
+    /**
+     * Build the list from boxed numbers
+     *
+     * @param numbers the numbers
+     * @return the list
+     */
+    static NumberList of(final List<Number> numbers) {
+        NumberList list = new NumberList();
+        for (Number number : numbers) list.add(number);
+
+        return list;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    byte tag(final int index) {
+        return tags[index];
+    }
+
+    long bits(final int index) {
+        return values[index];
+    }
+
+    Number object(final int index) {
+        return objects[index];
+    }
+
+    void addInt(final int value) {
+        append(BinaryMessageCodec.TAG_INT, value);
+    }
+
+    void addLong(final long value) {
+        append(BinaryMessageCodec.TAG_LONG, value);
+    }
+
+    void addFloat(final float value) {
+        append(BinaryMessageCodec.TAG_FLOAT, Float.floatToRawIntBits(value));
+    }
+
+    void addDouble(final double value) {
+        append(BinaryMessageCodec.TAG_DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    void addBoolean(final boolean value) {
+        append(BinaryMessageCodec.TAG_BYTE, value ? 1 : 0);
+    }
+
+    void addVarInt(final int value) {
+        append(BinaryMessageCodec.TAG_VARINT, value);
+    }
+
+    /**
+     * Add a number, keeping the tag the
+     * codec writes for its type
+     *
+     * @param number the number
+     */
+    void add(final Number number) {
+        if (number == null) {
+            append(BinaryMessageCodec.TAG_NULL, 0);
+        } else if (number instanceof Byte) {
+            append(BinaryMessageCodec.TAG_BYTE, number.byteValue());
+        } else if (number instanceof Short) {
+            append(BinaryMessageCodec.TAG_SHORT, number.shortValue());
+        } else if (number instanceof Integer || number instanceof AtomicInteger) {
+            addInt(number.intValue());
+        } else if (number instanceof Long || number instanceof AtomicLong || number instanceof LongAdder || number instanceof LongAccumulator) {
+            addLong(number.longValue());
+        } else if (number instanceof Float) {
+            addFloat(number.floatValue());
+        } else if (number instanceof BigInteger || number instanceof BigDecimal) {
+            append(number instanceof BigInteger ? BinaryMessageCodec.TAG_BIG_INTEGER : BinaryMessageCodec.TAG_BIG_DECIMAL, 0);
+            if (objects == null) objects = new Number[tags.length];
+            objects[size - 1] = number;
+        } else {
+            //Doubles and any other number implementation
+            addDouble(number.doubleValue());
+        }
+    }
+
+    /**
+     * Get a number boxed as the type
+     * it was written with
+     *
+     * @param index the number index
+     * @return the number
+     */
+    Number get(final int index) {
+        long value = values[index];
+        switch (tags[index]) {
+            case BinaryMessageCodec.TAG_NULL:
+                return null;
+            case BinaryMessageCodec.TAG_BYTE:
+                return (byte) value;
+            case BinaryMessageCodec.TAG_SHORT:
+                return (short) value;
+            case BinaryMessageCodec.TAG_INT:
+            case BinaryMessageCodec.TAG_VARINT:
+                return (int) value;
+            case BinaryMessageCodec.TAG_LONG:
+                return value;
+            case BinaryMessageCodec.TAG_FLOAT:
+                return Float.intBitsToFloat((int) value);
+            case BinaryMessageCodec.TAG_DOUBLE:
+                return Double.longBitsToDouble(value);
+            default:
+                return objects[index];
+        }
+    }
+
+    /**
+     * Get a number as an int, converting it
+     * as {@link Number#intValue()} does
+     *
+     * @param index the number index
+     * @return the number value
+     * @throws NullPointerException if the number is null
+     */
+    int intValue(final int index) {
+        switch (tags[index]) {
+            case BinaryMessageCodec.TAG_FLOAT:
+            case BinaryMessageCodec.TAG_DOUBLE:
+                //Saturated instead of wrapped, as the floating point types do
+                return (int) doubleValue(index);
+            default:
+                return (int) longValue(index);
+        }
+    }
+
+    /**
+     * Get a number as a long, converting it
+     * as {@link Number#longValue()} does
+     *
+     * @param index the number index
+     * @return the number value
+     * @throws NullPointerException if the number is null
+     */
+    long longValue(final int index) {
+        long value = values[index];
+        switch (tags[index]) {
+            case BinaryMessageCodec.TAG_NULL:
+                throw new NullPointerException("Number " + index + " is null");
+            case BinaryMessageCodec.TAG_FLOAT:
+                return (long) Float.intBitsToFloat((int) value);
+            case BinaryMessageCodec.TAG_DOUBLE:
+                return (long) Double.longBitsToDouble(value);
+            case BinaryMessageCodec.TAG_BIG_INTEGER:
+            case BinaryMessageCodec.TAG_BIG_DECIMAL:
+                return objects[index].longValue();
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Get a number as a double, converting it
+     * as {@link Number#doubleValue()} does
+     *
+     * @param index the number index
+     * @return the number value
+     * @throws NullPointerException if the number is null
+     */
+    double doubleValue(final int index) {
+        long value = values[index];
+        switch (tags[index]) {
+            case BinaryMessageCodec.TAG_NULL:
+                throw new NullPointerException("Number " + index + " is null");
+            case BinaryMessageCodec.TAG_FLOAT:
+                return Float.intBitsToFloat((int) value);
+            case BinaryMessageCodec.TAG_DOUBLE:
+                return Double.longBitsToDouble(value);
+            case BinaryMessageCodec.TAG_BIG_INTEGER:
+            case BinaryMessageCodec.TAG_BIG_DECIMAL:
+                return objects[index].doubleValue();
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Box every number, for the
+     * legacy serialized form
+     *
+     * @return the numbers
+     */
+    List<Number> toList() {
+        List<Number> numbers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) numbers.add(get(i));
+
+        return numbers;
+    }
+
+    void append(final byte tag, final long value) {
+        if (size == tags.length) {
+            int capacity = Math.max(8, size + (size >> 1));
+            tags = Arrays.copyOf(tags, capacity);
+            values = Arrays.copyOf(values, capacity);
+            if (objects != null) objects = Arrays.copyOf(objects, capacity);
+        }
+
+        tags[size] = tag;
+        values[size++] = value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(get(i));
+        }
+
+        return builder.toString();
+    }
+}
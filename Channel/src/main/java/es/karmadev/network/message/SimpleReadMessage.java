@@ -1,12 +1,18 @@
 package es.karmadev.network.message;
 
 import es.karmadev.api.network.message.ReadOnlyMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class SimpleReadMessage implements ReadOnlyMessage {
 
@@ -16,8 +22,22 @@ public class SimpleReadMessage implements ReadOnlyMessage {
     private int bytePointer = 0;
 
     public SimpleReadMessage(final byte[] data) {
+        this(Unpooled.wrappedBuffer(data));
+    }
+
+    SimpleReadMessage(final WritableReadableData data) {
+        this.data = data;
+    }
+
+    public SimpleReadMessage(final ByteBuf buffer) {
+        if (BinaryMessageCodec.isBinary(buffer)) {
+            this.data = BinaryMessageCodec.decode(buffer);
+            return;
+        }
+
+        if (!MessageConstructor.getCodec().readsLegacy()) throw new RuntimeException("Invalid data to decode");
         try {
-            try (ByteArrayInputStream input = new ByteArrayInputStream(data);
+            try (ByteBufInputStream input = new ByteBufInputStream(buffer);
                  ObjectInputStream stream = new ObjectInputStream(input)) {
 
                 Object deserialized = stream.readObject();
@@ -73,6 +93,81 @@ public class SimpleReadMessage implements ReadOnlyMessage {
         return data.numbers.get(numberPointer++);
     }
 
+    /**
+     * Read the next number as an int
+     *
+     * @return the next number
+     */
+    @Override
+    public int readInt() {
+        if (numberPointer >= data.numbers.size()) throw new IndexOutOfBoundsException();
+
+        int value = data.numbers.intValue(numberPointer);
+        numberPointer++;
+
+        return value;
+    }
+
+    /**
+     * Read the next number as a long
+     *
+     * @return the next number
+     */
+    @Override
+    public long readLong() {
+        if (numberPointer >= data.numbers.size()) throw new IndexOutOfBoundsException();
+
+        long value = data.numbers.longValue(numberPointer);
+        numberPointer++;
+
+        return value;
+    }
+
+    /**
+     * Read the next number as a float
+     *
+     * @return the next number
+     */
+    @Override
+    public float readFloat() {
+        return (float) readDouble();
+    }
+
+    /**
+     * Read the next number as a double
+     *
+     * @return the next number
+     */
+    @Override
+    public double readDouble() {
+        if (numberPointer >= data.numbers.size()) throw new IndexOutOfBoundsException();
+
+        double value = data.numbers.doubleValue(numberPointer);
+        numberPointer++;
+
+        return value;
+    }
+
+    /**
+     * Read the next number as a boolean
+     *
+     * @return if the next number is not zero
+     */
+    @Override
+    public boolean readBoolean() {
+        return readDouble() != 0;
+    }
+
+    /**
+     * Read the next variable length int
+     *
+     * @return the next number
+     */
+    @Override
+    public int readVarInt() {
+        return readInt();
+    }
+
     /**
      * Read the next character from the message
      *
@@ -80,8 +175,8 @@ public class SimpleReadMessage implements ReadOnlyMessage {
      */
     @Override
     public char readCharacter() {
-        if (charPointer >= data.characters.size()) throw new IndexOutOfBoundsException();
-        return data.characters.get(charPointer++);
+        if (charPointer >= data.characterCount) throw new IndexOutOfBoundsException();
+        return data.characters[charPointer++];
     }
 
     /**
@@ -91,7 +186,7 @@ public class SimpleReadMessage implements ReadOnlyMessage {
      */
     @Override
     public String readUTF() {
-        if (bytePointer >= data.bytes.size()) throw new IndexOutOfBoundsException();
+        if (bytePointer >= data.bytes.size()) return null; //Binary messages do not carry the empty trailing slots
 
         byte[] data = this.data.bytes.get(bytePointer++);
         if (data == null) return null;
@@ -119,8 +214,8 @@ public class SimpleReadMessage implements ReadOnlyMessage {
     public int nextByteLength() {
         if (bytePointer >= data.bytes.size()) return -1;
 
-        byte[] data = this.data.bytes.get(bytePointer + 1);
-        return data.length;
+        byte[] data = this.data.bytes.get(bytePointer);
+        return (data == null ? -1 : data.length);
     }
 
     /**
@@ -146,6 +241,20 @@ public class SimpleReadMessage implements ReadOnlyMessage {
         }
     }
 
+    /**
+     * Read the next byte sequence
+     *
+     * @return a read only view of the next byte sequence, or
+     * null if the sequence is null or there are no more sequences
+     */
+    @Override
+    public ByteBuffer readBuffer() {
+        if (bytePointer >= data.bytes.size()) return null;
+
+        byte[] data = this.data.bytes.get(bytePointer++);
+        return (data == null ? null : ByteBuffer.wrap(data).asReadOnlyBuffer());
+    }
+
     /**
      * Build the read only message into a
      * byte array, so it can be sent into
@@ -155,6 +264,16 @@ public class SimpleReadMessage implements ReadOnlyMessage {
      */
     @Override
     public byte[] toByteArray() {
+        if (!MessageConstructor.getCodec().writesLegacy()) {
+            ByteBuf buffer = Unpooled.buffer();
+            try {
+                BinaryMessageCodec.encode(data, buffer);
+                return ByteBufUtil.getBytes(buffer);
+            } finally {
+                buffer.release();
+            }
+        }
+
         try (ByteArrayOutputStream out = new ByteArrayOutputStream(); ObjectOutputStream stream = new ObjectOutputStream(out)) {
             stream.writeObject(data);
             stream.flush();
@@ -165,6 +284,31 @@ public class SimpleReadMessage implements ReadOnlyMessage {
         }
     }
 
+    /**
+     * Get the message route
+     *
+     * @return the message route, or null if the
+     * message has no route
+     */
+    @Override
+    public String route() {
+        return data.route;
+    }
+
+    /**
+     * Get the time left before the message
+     * expires
+     *
+     * @param unit the unit to get the time in
+     * @return the time left, or {@link Long#MAX_VALUE} if
+     * the message has no deadline
+     */
+    @Override
+    public long timeLeft(final TimeUnit unit) {
+        if (!data.hasDeadline) return Long.MAX_VALUE;
+        return BinaryMessageCodec.timeLeft(data.deadline, unit);
+    }
+
     /**
      * Reset the message pointers
      */
@@ -203,24 +347,16 @@ public class SimpleReadMessage implements ReadOnlyMessage {
         StringBuilder builder = new StringBuilder("ReadOnlyMessage[");
         boolean writeComma = false;
         if (!data.numbers.isEmpty()) {
-            builder.append("Numbers:{");
-            for (int i = 0; i < data.numbers.size(); i++) {
-                Number number = data.numbers.get(i);
-                builder.append(number);
-                if (i != data.numbers.size() - 1) {
-                    builder.append(", ");
-                }
-            }
-            builder.append("}");
+            builder.append("Numbers:{").append(data.numbers).append("}");
             writeComma = true;
         }
-        if (!data.characters.isEmpty()) {
+        if (data.characterCount > 0) {
             if (writeComma) builder.append(", ");
             builder.append("Characters:{");
-            for (int i = 0; i < data.characters.size(); i++) {
-                char character = data.characters.get(i);
+            for (int i = 0; i < data.characterCount; i++) {
+                char character = data.characters[i];
                 builder.append(character);
-                if (i != data.characters.size() - 1) {
+                if (i != data.characterCount - 1) {
                     builder.append(", ");
                 }
             }
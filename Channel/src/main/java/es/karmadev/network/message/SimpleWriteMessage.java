@@ -1,22 +1,30 @@
 package es.karmadev.network.message;
 
 import es.karmadev.api.network.message.ReadOnlyMessage;
-import es.karmadev.api.network.message.WritableMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
-class SimpleWriteMessage implements WritableMessage {
+class SimpleWriteMessage implements EncodableMessage {
 
     private final static SecureRandom random = new SecureRandom();
 
     private final int id;
     private boolean encrypted = false;
+    private boolean hasDeadline = false;
+    private long deadline;
+    private String route;
+    private boolean responseExpected = true;
 
-    protected Number[] numbers = new Number[0];
+    protected final NumberList numbers = new NumberList();
     protected char[] characters = new char[0];
+    protected int characterCount;
     protected byte[][] bytes = new byte[10][];
     protected Map<String, String> keys = new HashMap<>();
 
@@ -26,6 +34,14 @@ class SimpleWriteMessage implements WritableMessage {
 
     public SimpleWriteMessage(final ReadOnlyMessage responseAs) {
         id = responseAs.id();
+        responseExpected = false;
+
+        //A response is only useful while the request is still awaited
+        long timeLeft = responseAs.timeLeft(TimeUnit.NANOSECONDS);
+        if (timeLeft != Long.MAX_VALUE) {
+            hasDeadline = true;
+            deadline = System.nanoTime() + timeLeft;
+        }
     }
 
     /**
@@ -58,6 +74,84 @@ class SimpleWriteMessage implements WritableMessage {
         this.encrypted = status;
     }
 
+    /**
+     * Set the time the message is valid for
+     *
+     * @param timeout the message time to live
+     * @param unit the timeout unit
+     */
+    @Override
+    public void setTimeout(final long timeout, final TimeUnit unit) {
+        if (timeout < 0) throw new IllegalArgumentException("Message timeout cannot be negative");
+
+        hasDeadline = true;
+        deadline = System.nanoTime() + unit.toNanos(timeout);
+    }
+
+    /**
+     * Get the time left before the message
+     * expires
+     *
+     * @param unit the unit to get the time in
+     * @return the time left, or {@link Long#MAX_VALUE} if
+     * the message has no deadline
+     */
+    @Override
+    public long timeLeft(final TimeUnit unit) {
+        if (!hasDeadline) return Long.MAX_VALUE;
+        return BinaryMessageCodec.timeLeft(deadline, unit);
+    }
+
+    /**
+     * Set the route the message is dispatched to
+     *
+     * @param route the message route, or null to
+     *              reach the catch-all handlers
+     */
+    @Override
+    public void setRoute(final String route) {
+        this.route = route;
+    }
+
+    /**
+     * Get the message route
+     *
+     * @return the message route, or null if the
+     * message has no route
+     */
+    @Override
+    public String route() {
+        return route;
+    }
+
+    /**
+     * Set if the message expects a response
+     *
+     * @param expected if the message expects a response
+     */
+    @Override
+    public void setResponseExpected(final boolean expected) {
+        this.responseExpected = expected;
+    }
+
+    /**
+     * Get if the message expects a response
+     *
+     * @return if the message expects a response
+     */
+    @Override
+    public boolean isResponseExpected() {
+        return responseExpected;
+    }
+
+    boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    long deadline() {
+        return deadline;
+    }
+
     /**
      * Write a number into the
      * message
@@ -66,8 +160,67 @@ class SimpleWriteMessage implements WritableMessage {
      */
     @Override
     public void writeNumber(final Number number) {
-        numbers = Arrays.copyOf(numbers, numbers.length + 1);
-        numbers[numbers.length - 1] = number;
+        numbers.add(number);
+    }
+
+    /**
+     * Write an int into the message
+     *
+     * @param value the value to write
+     */
+    @Override
+    public void writeInt(final int value) {
+        numbers.addInt(value);
+    }
+
+    /**
+     * Write a long into the message
+     *
+     * @param value the value to write
+     */
+    @Override
+    public void writeLong(final long value) {
+        numbers.addLong(value);
+    }
+
+    /**
+     * Write a float into the message
+     *
+     * @param value the value to write
+     */
+    @Override
+    public void writeFloat(final float value) {
+        numbers.addFloat(value);
+    }
+
+    /**
+     * Write a double into the message
+     *
+     * @param value the value to write
+     */
+    @Override
+    public void writeDouble(final double value) {
+        numbers.addDouble(value);
+    }
+
+    /**
+     * Write a boolean into the message
+     *
+     * @param value the value to write
+     */
+    @Override
+    public void writeBoolean(final boolean value) {
+        numbers.addBoolean(value);
+    }
+
+    /**
+     * Write a variable length int into the message
+     *
+     * @param value the value to write
+     */
+    @Override
+    public void writeVarInt(final int value) {
+        numbers.addVarInt(value);
     }
 
     /**
@@ -77,8 +230,11 @@ class SimpleWriteMessage implements WritableMessage {
      */
     @Override
     public void writeCharacter(final char character) {
-        characters = Arrays.copyOf(characters, characters.length + 1);
-        characters[characters.length - 1] = character;
+        if (characterCount == characters.length) {
+            characters = Arrays.copyOf(characters, Math.max(8, characterCount + (characterCount >> 1)));
+        }
+
+        characters[characterCount++] = character;
     }
 
     /**
@@ -122,14 +278,59 @@ class SimpleWriteMessage implements WritableMessage {
      */
     @Override
     public byte[] toByteArray() {
+        if (MessageConstructor.getCodec().writesLegacy()) {
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                writeLegacy(out);
+                return out.toByteArray();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        byte[] data = new byte[BinaryMessageCodec.sizeOf(this)];
+        BinaryMessageCodec.encode(this, Unpooled.wrappedBuffer(data).writerIndex(0));
+
+        return data;
+    }
+
+    /**
+     * Get the exact amount of bytes the
+     * message takes once encoded
+     *
+     * @return the encoded size, or -1 if it
+     * cannot be known before encoding
+     */
+    @Override
+    public int encodedSize() {
+        if (MessageConstructor.getCodec().writesLegacy()) return -1;
+        return BinaryMessageCodec.sizeOf(this);
+    }
+
+    /**
+     * Encode the message into the buffer
+     *
+     * @param buffer the buffer to write to
+     */
+    @Override
+    public void encode(final ByteBuf buffer) {
+        if (MessageConstructor.getCodec().writesLegacy()) {
+            try (ByteBufOutputStream out = new ByteBufOutputStream(buffer)) {
+                writeLegacy(out);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+
+            return;
+        }
+
+        BinaryMessageCodec.encode(this, buffer);
+    }
+
+    private void writeLegacy(final OutputStream out) throws IOException {
         WritableReadableData data = new WritableReadableData(this);
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream(); ObjectOutputStream stream = new ObjectOutputStream(out)) {
+        try (ObjectOutputStream stream = new ObjectOutputStream(out)) {
             stream.writeObject(data);
             stream.flush();
-
-            return out.toByteArray();
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
         }
     }
 
@@ -180,25 +381,17 @@ class SimpleWriteMessage implements WritableMessage {
     public String toString() {
         StringBuilder builder = new StringBuilder("WritableMessage[");
         boolean writeComma = false;
-        if (numbers.length > 0) {
-            builder.append("Numbers:{");
-            for (int i = 0; i < numbers.length; i++) {
-                Number number = numbers[i];
-                builder.append(number);
-                if (i != numbers.length - 1) {
-                    builder.append(", ");
-                }
-            }
-            builder.append("}");
+        if (!numbers.isEmpty()) {
+            builder.append("Numbers:{").append(numbers).append("}");
             writeComma = true;
         }
-        if (characters.length > 0) {
+        if (characterCount > 0) {
             if (writeComma) builder.append(", ");
             builder.append("Characters:{");
-            for (int i = 0; i < characters.length; i++) {
+            for (int i = 0; i < characterCount; i++) {
                 char character = characters[i];
                 builder.append(character);
-                if (i != characters.length - 1) {
+                if (i != characterCount - 1) {
                     builder.append(", ");
                 }
             }
@@ -1,25 +1,87 @@
 package es.karmadev.network.message;
 
-import java.io.Serializable;
+import java.io.*;
 import java.util.*;
 
 public class WritableReadableData implements Serializable {
 
-    protected final int id;
+    //Pinned to the value older versions computed, so the legacy form stays readable
+    private static final long serialVersionUID = 5976330945949491701L;
+
+    //The fields older versions serialized, numbers and characters were boxed lists
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", int.class),
+            new ObjectStreamField("encrypted", boolean.class),
+            new ObjectStreamField("numbers", List.class),
+            new ObjectStreamField("characters", List.class),
+            new ObjectStreamField("bytes", List.class),
+            new ObjectStreamField("keys", Map.class),
+            new ObjectStreamField("route", String.class)
+    };
+
+    protected int id;
     protected boolean encrypted;
-    protected final List<Number> numbers = new ArrayList<>();
-    protected final List<Character> characters = new ArrayList<>();
-    protected final List<byte[]> bytes = new ArrayList<>();
-    protected final Map<String, String> keys = new HashMap<>();
+    protected NumberList numbers = new NumberList();
+    protected char[] characters = new char[0];
+    protected int characterCount;
+    protected List<byte[]> bytes = new ArrayList<>();
+    protected Map<String, String> keys = new HashMap<>();
+    protected String route;
+    protected transient boolean hasDeadline;
+    protected transient long deadline;
 
     WritableReadableData(final SimpleWriteMessage message) {
         this.id = message.id();
         this.encrypted = message.encrypted();
-        this.numbers.addAll(Arrays.asList(message.numbers));
-        for (char character : message.characters) {
-            this.characters.add(character);
-        }
+        this.numbers = new NumberList(message.numbers);
+        this.characters = Arrays.copyOf(message.characters, message.characterCount);
+        this.characterCount = message.characterCount;
         this.bytes.addAll(Arrays.asList(message.bytes));
         keys.putAll(message.keys);
+        this.route = message.route();
+        this.hasDeadline = message.hasDeadline();
+        this.deadline = message.deadline();
+    }
+
+    WritableReadableData(final int id, final boolean encrypted) {
+        this.id = id;
+        this.encrypted = encrypted;
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        List<Character> characters = new ArrayList<>(characterCount);
+        for (int i = 0; i < characterCount; i++) characters.add(this.characters[i]);
+
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("id", id);
+        fields.put("encrypted", encrypted);
+        fields.put("numbers", numbers.toList());
+        fields.put("characters", characters);
+        fields.put("bytes", bytes);
+        fields.put("keys", keys);
+        fields.put("route", route);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        id = fields.get("id", 0);
+        encrypted = fields.get("encrypted", false);
+        route = (String) fields.get("route", null);
+
+        List<Number> numbers = (List<Number>) fields.get("numbers", null);
+        this.numbers = (numbers == null ? new NumberList() : NumberList.of(numbers));
+
+        List<Character> characters = (List<Character>) fields.get("characters", null);
+        characterCount = (characters == null ? 0 : characters.size());
+        this.characters = new char[characterCount];
+        for (int i = 0; i < characterCount; i++) this.characters[i] = characters.get(i);
+
+        List<byte[]> bytes = (List<byte[]>) fields.get("bytes", null);
+        this.bytes = (bytes == null ? new ArrayList<>() : bytes);
+
+        Map<String, String> keys = (Map<String, String>) fields.get("keys", null);
+        this.keys = (keys == null ? new HashMap<>() : keys);
     }
 }
@@ -1,6 +1,6 @@
 package es.karmadev.network.message.frame;
 
-import es.karmadev.api.network.EncryptMode;
+import es.karmadev.api.network.crypto.CipherSuite;
 import es.karmadev.api.network.exception.message.EmptyComposerException;
 import es.karmadev.api.network.message.NetMessage;
 import es.karmadev.api.network.message.WritableMessage;
@@ -9,14 +9,8 @@ import es.karmadev.api.network.message.frame.NetFrame;
 import es.karmadev.network.channel.NettyChannel;
 import es.karmadev.network.message.MessageConstructor;
 
-import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
-import java.security.InvalidKeyException;
-import java.security.Key;
-import java.security.KeyPair;
-import java.security.NoSuchAlgorithmException;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -26,6 +20,7 @@ public class FrameMessageComposer implements FrameComposer {
 
     private final List<NetFrame> frames = new ArrayList<>();
     private final NettyChannel channel;
+    private int maxPosition = -1;
 
     public FrameMessageComposer(final NettyChannel channel) {
         this.channel = channel;
@@ -38,6 +33,12 @@ public class FrameMessageComposer implements FrameComposer {
      */
     @Override
     public void append(final NetFrame frame) {
+        if (frames.isEmpty()) {
+            maxPosition = frame.maxPosition();
+        } else if (maxPosition != frame.maxPosition()) {
+            throw new RuntimeException("Invalid frame received");
+        }
+
         frames.add(frame);
     }
 
@@ -48,18 +49,7 @@ public class FrameMessageComposer implements FrameComposer {
      */
     @Override
     public boolean isFull() {
-        int count = 0;
-        int max = -1;
-        for (NetFrame frame : frames) {
-            if (max == -1) {
-                max = frame.maxPosition();
-            }
-
-            if (max != frame.maxPosition()) throw new RuntimeException("Invalid frame received");
-            count++;
-        }
-
-        return count == max;
+        return !frames.isEmpty() && frames.size() == maxPosition;
     }
 
     /**
@@ -71,19 +61,41 @@ public class FrameMessageComposer implements FrameComposer {
      */
     @Override
     public NetMessage build() throws EmptyComposerException {
+        if (frames.isEmpty()) throw new EmptyComposerException();
         frames.sort(Comparator.comparingInt(NetFrame::position));
 
-        byte[] completeData = new byte[0];
-        for (NetFrame frame : frames) {
-            int startPos = completeData.length;
+        CipherSuite suite = channel.getCipherSuite();
+        SecretKey key = null;
+        byte[] keyData = null;
 
-            byte[] tData = new byte[(int) frame.length()];
+        List<byte[]> parts = new ArrayList<>(frames.size());
+        int length = 0;
+        for (NetFrame frame : frames) {
+            byte[] tData = new byte[frame.length()];
             frame.read(tData, 0);
-            if (frame.encrypted())
-                tData = channel.decrypt(EncryptMode.DECRYPT_FROM_EMISSION, tData);
+            if (frame.encrypted()) {
+                try {
+                    if (key == null || !Arrays.equals(keyData, frame.getKey())) {
+                        keyData = frame.getKey();
+                        key = channel.unwrapKey(keyData);
+                    }
+
+                    tData = suite.open(key, frame.getIv(), null, tData);
+                } catch (GeneralSecurityException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
 
-            completeData = Arrays.copyOf(completeData, completeData.length + tData.length);
-            System.arraycopy(tData, 0, completeData, startPos, tData.length);
+            parts.add(tData);
+            length += tData.length;
+        }
+
+        //Sized once, so every frame is copied a single time
+        byte[] completeData = new byte[length];
+        int position = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, completeData, position, part.length);
+            position += part.length;
         }
 
         return MessageConstructor.build(completeData);
@@ -105,9 +117,6 @@ public class FrameMessageComposer implements FrameComposer {
     }
 
     private NetFrame[] splitAndEncrypt(final WritableMessage content, final int length) {
-        KeyPair pair = channel.channelKeys();
-        Key key = pair.getPublic();
-
         byte[] data = content.toByteArray();
         List<byte[]> dataToEncrypt = new ArrayList<>();
         if (data.length <= length) {
@@ -133,18 +142,21 @@ public class FrameMessageComposer implements FrameComposer {
 
         List<NetFrame> frames = new ArrayList<>();
         try {
-            Cipher cipher = Cipher.getInstance("RSA");
-            cipher.init(Cipher.ENCRYPT_MODE, key);
+            //One content key per message, so the expensive key encryption happens once
+            CipherSuite suite = channel.getCipherSuite();
+            SecretKey key = suite.generateKey();
+            byte[] encryptedKey = channel.wrapKey(key, channel.channelKeys().getPublic());
 
             int position = 1;
             for (byte[] target : dataToEncrypt) {
-                byte[] encrypted = cipher.doFinal(target);
+                byte[] nonce = new byte[suite.nonceLength()];
+                suite.randomNonce(nonce);
+                byte[] encrypted = suite.seal(key, nonce, null, target);
 
-                NetFrame frame = new NetworkFrame(content.id(), content.encrypted(), position++, dataToEncrypt.size(), encrypted);
+                NetFrame frame = new NetworkFrame(content.id(), content.encrypted(), position++, dataToEncrypt.size(), encryptedKey, nonce, encrypted);
                 frames.add(frame);
             }
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | IllegalBlockSizeException |
-                 BadPaddingException ex) {
+        } catch (GeneralSecurityException ex) {
             throw new RuntimeException(ex);
         }
 
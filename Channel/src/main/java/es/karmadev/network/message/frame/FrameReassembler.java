@@ -0,0 +1,260 @@
+package es.karmadev.network.message.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Puts the {@link es.karmadev.network.wire.Opcode#CHUNK chunks} of the
+ * messages received on a connection back together. Each chunk is kept
+ * by its position as a retained buffer, and a bitmap tells which ones
+ * have arrived, so a chunk is placed and the message completion detected
+ * in constant time. Complete messages are returned as a composite of their
+ * chunks, without copying them.
+ * <p>
+ * Incomplete messages are evicted, oldest first, when the chunks held go over
+ * the memory budget or the amount of incomplete messages, and when they have
+ * not completed after the timeout, which is checked as chunks arrive. The rest
+ * of the chunks of an evicted message are dropped as they arrive.
+ * <p>
+ * The reassembler is not thread safe, and must only be used from the
+ * connection event loop
+ */
+public class FrameReassembler {
+
+    private final static int MAX_PARTIALS = 1024;
+    //Chunks arrive in order on a connection, so a chunk far ahead of the others is bogus
+    private final static int MAX_AHEAD = 4096;
+
+    private final Map<Integer, Partial> partials = new LinkedHashMap<>();
+    private final long maxBytes;
+    private final long timeout;
+
+    private long heldBytes;
+    private long evicted;
+
+    /**
+     * Initialize the reassembler
+     *
+     * @param maxBytes the max amount of chunk bytes held
+     *                 for incomplete messages
+     * @param timeout the time in nanoseconds an incomplete message
+     *                is kept since its first chunk arrived
+     */
+    public FrameReassembler(final long maxBytes, final long timeout) {
+        this.maxBytes = maxBytes;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Add a chunk
+     *
+     * @param allocator the allocator to build the message buffer with
+     * @param id the message ID
+     * @param position the chunk position, starting at 1
+     * @param maxPosition the amount of chunks of the message
+     * @param data the chunk data, which is retained if needed
+     * @param now the current time, in {@link System#nanoTime()} time
+     * @return the message data once every chunk has
+     * arrived, or null if it is not complete yet
+     * @throws CorruptedFrameException if the chunk does not
+     * match the previous chunks of the message
+     */
+    public ByteBuf add(final ByteBufAllocator allocator, final int id, final int position, final int maxPosition, final ByteBuf data, final long now) throws CorruptedFrameException {
+        if (position < 1 || position > maxPosition) throw new CorruptedFrameException("Invalid chunk position " + position + " of " + maxPosition);
+        expire(now);
+
+        Partial partial = partials.get(id);
+        if (partial == null) {
+            if (maxPosition == 1) return data.retain();
+            //Every chunk carries data, so more chunks than the budget could never fit
+            if (maxPosition > maxBytes) throw new CorruptedFrameException("Message " + id + " of " + maxPosition + " chunks exceeds the reassembly budget");
+
+            partial = new Partial(maxPosition, now);
+            partials.put(id, partial);
+        } else if (partial.maxPosition != maxPosition) {
+            discard(id, partial);
+            throw new CorruptedFrameException("Chunk of message " + id + " declares " + maxPosition + " chunks, previous ones declared " + partial.maxPosition);
+        }
+
+        if (position > partial.received + MAX_AHEAD) {
+            discard(id, partial);
+            throw new CorruptedFrameException("Chunk " + position + " of message " + id + " is too far ahead of the " + partial.received + " received");
+        }
+
+        if (partial.discarded) {
+            if (partial.mark(position) && partial.received == maxPosition) partials.remove(id);
+            return null;
+        }
+        if (!partial.mark(position)) return null; //Repeated chunk
+
+        int length = data.readableBytes();
+        partial.put(position, data.retain());
+        partial.bytes += length;
+        heldBytes += length;
+
+        if (partial.received == maxPosition) {
+            partials.remove(id);
+            heldBytes -= partial.bytes;
+
+            return partial.compose(allocator);
+        }
+
+        fit(partial);
+        return null;
+    }
+
+    /**
+     * Get the amount of incomplete
+     * messages
+     *
+     * @return the incomplete message count
+     */
+    public int size() {
+        return partials.size();
+    }
+
+    /**
+     * Get the amount of chunk bytes held
+     * for incomplete messages
+     *
+     * @return the held bytes
+     */
+    public long heldBytes() {
+        return heldBytes;
+    }
+
+    /**
+     * Get the amount of incomplete messages
+     * which have been evicted
+     *
+     * @return the evicted message count
+     */
+    public long evicted() {
+        return evicted;
+    }
+
+    /**
+     * Release every chunk held
+     */
+    public void clear() {
+        for (Partial partial : partials.values()) partial.release();
+
+        partials.clear();
+        heldBytes = 0;
+    }
+
+    private void fit(final Partial current) {
+        Iterator<Partial> iterator = partials.values().iterator();
+        while ((heldBytes > maxBytes || partials.size() > MAX_PARTIALS) && iterator.hasNext()) {
+            Partial partial = iterator.next();
+            if (partial == current) continue;
+
+            evict(partial);
+            if (partials.size() > MAX_PARTIALS) iterator.remove();
+        }
+
+        //The message alone is over the budget
+        if (heldBytes > maxBytes) evict(current);
+    }
+
+    private void expire(final long now) {
+        Iterator<Partial> iterator = partials.values().iterator();
+        while (iterator.hasNext()) {
+            Partial partial = iterator.next();
+            //Ordered by arrival, so the first one still in time ends the search
+            if (now - partial.startedAt < timeout) return;
+
+            if (!partial.discarded) {
+                heldBytes -= partial.bytes;
+                partial.release();
+                evicted++;
+            }
+            iterator.remove();
+        }
+    }
+
+    private void evict(final Partial partial) {
+        if (partial.discarded) return;
+
+        heldBytes -= partial.bytes;
+        partial.release();
+        evicted++;
+    }
+
+    private void discard(final int id, final Partial partial) {
+        if (!partial.discarded) {
+            heldBytes -= partial.bytes;
+            partial.release();
+        }
+        partials.remove(id);
+    }
+
+    private static class Partial {
+
+        private final int maxPosition;
+        private final long startedAt;
+
+        private long[] bitmap;
+        private ByteBuf[] chunks;
+        private int received;
+        private long bytes;
+        private boolean discarded;
+
+        private Partial(final int maxPosition, final long startedAt) {
+            this.maxPosition = maxPosition;
+            this.startedAt = startedAt;
+
+            //Grown as chunks arrive, so a bogus max position cannot make us allocate
+            int initial = Math.min(maxPosition, 16);
+            bitmap = new long[(initial + 63) >>> 6];
+            chunks = new ByteBuf[initial];
+        }
+
+        private boolean mark(final int position) {
+            int index = position - 1;
+            int word = index >>> 6;
+            if (word >= bitmap.length) bitmap = Arrays.copyOf(bitmap, Math.max(word + 1, Math.min(bitmap.length * 2, (maxPosition + 63) >>> 6)));
+
+            long bit = 1L << index;
+            if ((bitmap[word] & bit) != 0) return false;
+
+            bitmap[word] |= bit;
+            received++;
+
+            return true;
+        }
+
+        private void put(final int position, final ByteBuf chunk) {
+            int index = position - 1;
+            if (index >= chunks.length) chunks = Arrays.copyOf(chunks, Math.max(index + 1, (int) Math.min((long) chunks.length * 2, maxPosition)));
+
+            chunks[index] = chunk;
+        }
+
+        private ByteBuf compose(final ByteBufAllocator allocator) {
+            CompositeByteBuf composite = allocator.compositeBuffer(maxPosition);
+            composite.addComponents(true, chunks);
+            chunks = null;
+
+            return composite;
+        }
+
+        private void release() {
+            discarded = true;
+            if (chunks == null) return;
+
+            for (ByteBuf chunk : chunks) {
+                if (chunk != null) chunk.release();
+            }
+            chunks = null;
+            bytes = 0;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package es.karmadev.network.message.frame;
+
+import es.karmadev.network.util.VarInt;
+import es.karmadev.network.wire.Opcode;
+import es.karmadev.network.wire.WireFrame;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Message read from a source and sent in {@link Opcode#CHUNK chunk}
+ * frames, which are only produced when the connection can take them.
+ * Each frame is read straight into its own buffer, so sending a message
+ * of any size only needs the memory of the frames the connection has
+ * not sent yet. Messages already encoded in a buffer are sent as slices
+ * of it instead.
+ * <p>
+ * Many streams share a connection; each one takes as many
+ * frames per turn as its {@link #weight() weight}.
+ * <p>
+ * Source reads happen on the connection event loop, so the source
+ * should not block for long (files and in-memory data are fine)
+ */
+public class FrameStream {
+
+    /**
+     * The weight of the streams which
+     * do not set one
+     */
+    public final static int DEFAULT_WEIGHT = 16;
+
+    /**
+     * The max weight of a stream
+     */
+    public final static int MAX_WEIGHT = 256;
+
+    private final int id;
+    private final boolean encrypted;
+    private final ReadableByteChannel source;
+    private final ByteBuf data;
+    private final long length;
+    private final int frameLength;
+    private final int maxPosition;
+    private final int weight;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    private int position;
+    private long remaining;
+    private boolean released;
+
+    /**
+     * Initialize the stream
+     *
+     * @param id the message ID
+     * @param encrypted if the frames must be sealed
+     * @param source the message data source
+     * @param length the amount of bytes to read from the source
+     * @param frameLength the max amount of data of each frame
+     * @param weight the frames the stream takes per turn
+     */
+    public FrameStream(final int id, final boolean encrypted, final ReadableByteChannel source, final long length, final int frameLength, final int weight) {
+        this(id, encrypted, source, null, length, frameLength, weight);
+    }
+
+    /**
+     * Initialize the stream of an encoded message
+     *
+     * @param id the message ID
+     * @param encrypted if the frames must be sealed
+     * @param data the encoded message, which is released
+     *             once the stream is closed
+     * @param frameLength the max amount of data of each frame
+     * @param weight the frames the stream takes per turn
+     */
+    public FrameStream(final int id, final boolean encrypted, final ByteBuf data, final int frameLength, final int weight) {
+        this(id, encrypted, null, data, data.readableBytes(), frameLength, weight);
+    }
+
+    private FrameStream(final int id, final boolean encrypted, final ReadableByteChannel source, final ByteBuf data, final long length, final int frameLength, final int weight) {
+        if (length <= 0) throw new IllegalArgumentException("Stream length must be positive");
+        if (frameLength <= 0) throw new IllegalArgumentException("Frame length must be positive");
+        if (weight < 1 || weight > MAX_WEIGHT) throw new IllegalArgumentException("Stream weight must be between 1 and " + MAX_WEIGHT);
+
+        long frames = (length + frameLength - 1) / frameLength;
+        if (frames > Integer.MAX_VALUE) throw new IllegalArgumentException("Stream of " + length + " bytes needs more than " + Integer.MAX_VALUE + " frames");
+
+        this.id = id;
+        this.encrypted = encrypted;
+        this.source = source;
+        this.data = data;
+        this.length = length;
+        this.frameLength = frameLength;
+        this.maxPosition = (int) frames;
+        this.weight = weight;
+        this.remaining = length;
+    }
+
+    /**
+     * Get the message ID
+     *
+     * @return the message ID
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Get the amount of bytes
+     * the stream sends
+     *
+     * @return the stream length
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Get the amount of frames
+     * the stream is split in
+     *
+     * @return the frame count
+     */
+    public int maxPosition() {
+        return maxPosition;
+    }
+
+    /**
+     * Get the amount of frames the stream
+     * takes each turn it is written
+     *
+     * @return the stream weight
+     */
+    public int weight() {
+        return weight;
+    }
+
+    /**
+     * Get the stream completion
+     *
+     * @return a future completed once every
+     * frame has been written
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    /**
+     * Get if every frame has
+     * been produced
+     *
+     * @return if the stream has ended
+     */
+    public boolean isEnd() {
+        return position == maxPosition;
+    }
+
+    /**
+     * Read the next frame from the source
+     *
+     * @param allocator the allocator to take the frame buffer from
+     * @return the next frame
+     * @throws IOException if the source cannot be read, or ends
+     * before the stream length
+     */
+    public WireFrame next(final ByteBufAllocator allocator) throws IOException {
+        if (isEnd()) throw new IllegalStateException("Stream " + id + " has ended");
+
+        int dataLength = (int) Math.min(frameLength, remaining);
+        int next = position + 1;
+
+        int headerLength = 4 + VarInt.size(next) + VarInt.size(maxPosition);
+        ByteBuf payload = allocator.ioBuffer(headerLength + (data == null ? dataLength : 0));
+        try {
+            payload.writeInt(id);
+            VarInt.write(payload, next);
+            VarInt.write(payload, maxPosition);
+
+            if (data != null) {
+                payload = allocator.compositeDirectBuffer(2).addComponents(true, payload, data.readRetainedSlice(dataLength));
+            } else {
+                ByteBuffer target = payload.nioBuffer(payload.writerIndex(), dataLength);
+                while (target.hasRemaining()) {
+                    if (source.read(target) < 0) throw new EOFException("Stream " + id + " source ended before its length of " + length + " bytes");
+                }
+                payload.writerIndex(payload.writerIndex() + dataLength);
+            }
+        } catch (IOException | RuntimeException ex) {
+            payload.release();
+            throw ex;
+        }
+
+        position = next;
+        remaining -= dataLength;
+
+        return new WireFrame(Opcode.CHUNK, (encrypted ? WireFrame.FLAG_ENCRYPTED : 0), payload);
+    }
+
+    /**
+     * Close the source, or release the message
+     * buffer, completing the stream
+     * if it has ended or failing it otherwise
+     *
+     * @param error the failure reason, or null
+     */
+    public void close(final Throwable error) {
+        if (source != null) {
+            try {
+                source.close();
+            } catch (IOException ignored) {}
+        } else if (!released) {
+            released = true;
+            data.release();
+        }
+
+        if (error != null) {
+            completion.completeExceptionally(error);
+        } else if (!isEnd()) {
+            completion.completeExceptionally(new EOFException("Stream " + id + " closed after " + position + " of " + maxPosition + " frames"));
+        } else {
+            completion.complete(null);
+        }
+    }
+}
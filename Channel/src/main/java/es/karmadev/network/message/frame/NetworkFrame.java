@@ -15,6 +15,10 @@ public class NetworkFrame implements NetFrame {
 
     private transient int pointer;
 
+    public NetworkFrame(final int id, final boolean encrypted, final int position, final int maxPosition, final byte[] data) {
+        this(id, encrypted, position, maxPosition, null, null, data);
+    }
+
     public NetworkFrame(final int id, final boolean encrypted, final int position, final int maxPosition, final byte[] key, final byte[] iv, final byte[] data) {
         this.id = id;
         this.encrypted = encrypted;
@@ -108,21 +112,23 @@ public class NetworkFrame implements NetFrame {
     /**
      * Get the frame key
      *
-     * @return the frame key
+     * @return the frame key, or null if
+     * the frame has no key
      */
     @Override
     public byte[] getKey() {
-        return key.clone();
+        return (key == null ? null : key.clone());
     }
 
     /**
      * Get the frame IV parameter spec
      *
-     * @return the frame IV
+     * @return the frame IV, or null if
+     * the frame has no IV
      */
     @Override
     public byte[] getIv() {
-        return iv.clone();
+        return (iv == null ? null : iv.clone());
     }
 
     /**
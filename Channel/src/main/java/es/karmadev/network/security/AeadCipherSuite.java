@@ -0,0 +1,148 @@
+package es.karmadev.network.security;
+
+import es.karmadev.api.network.crypto.CipherSuite;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * Base of the JCA backed AEAD suites. Looking up a
+ * provider is far more expensive than the cipher operation
+ * itself for small messages, so the cipher, key generator and
+ * random source are created once per thread (once per event
+ * loop) and re-initialized for every operation
+ */
+public abstract class AeadCipherSuite implements CipherSuite {
+
+    private final static FastThreadLocal<SecureRandom> random = new FastThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            return new SecureRandom();
+        }
+    };
+
+    private final String name;
+    private final String transformation;
+    private final String algorithm;
+    private final int keyLength;
+
+    //Sealing and opening keep their own cipher, as some providers refuse to re-initialize a cipher with the key and nonce it was last used with
+    private final FastThreadLocal<Cipher> sealers = new FastThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() throws GeneralSecurityException {
+            return Cipher.getInstance(transformation);
+        }
+    };
+    private final FastThreadLocal<Cipher> openers = new FastThreadLocal<Cipher>() {
+        @Override
+        protected Cipher initialValue() throws GeneralSecurityException {
+            return Cipher.getInstance(transformation);
+        }
+    };
+    private final FastThreadLocal<KeyGenerator> generators = new FastThreadLocal<KeyGenerator>() {
+        @Override
+        protected KeyGenerator initialValue() throws GeneralSecurityException {
+            KeyGenerator generator = KeyGenerator.getInstance(algorithm);
+            generator.init(keyLength * 8, random.get());
+
+            return generator;
+        }
+    };
+
+    /**
+     * Initialize the suite
+     *
+     * @param name the suite name
+     * @param transformation the cipher transformation
+     * @param algorithm the key algorithm
+     * @param keyLength the key length in bytes
+     */
+    protected AeadCipherSuite(final String name, final String transformation, final String algorithm, final int keyLength) {
+        this.name = name;
+        this.transformation = transformation;
+        this.algorithm = algorithm;
+        this.keyLength = keyLength;
+    }
+
+    /**
+     * Create the cipher parameters for the nonce
+     *
+     * @param nonce the nonce
+     * @return the cipher parameters
+     */
+    protected abstract AlgorithmParameterSpec parameters(final byte[] nonce);
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int keyLength() {
+        return keyLength;
+    }
+
+    @Override
+    public int nonceLength() {
+        return 12;
+    }
+
+    @Override
+    public int tagLength() {
+        return 16;
+    }
+
+    @Override
+    public SecretKey generateKey() {
+        return generators.get().generateKey();
+    }
+
+    @Override
+    public SecretKey createKey(final byte[] material) {
+        if (material.length != keyLength) throw new IllegalArgumentException("Invalid key length " + material.length + " for " + name);
+        return new SecretKeySpec(material, algorithm);
+    }
+
+    @Override
+    public void randomNonce(final byte[] nonce) {
+        random.get().nextBytes(nonce);
+    }
+
+    @Override
+    public int seal(final SecretKey key, final byte[] nonce, final byte[] aad, final ByteBuffer input, final ByteBuffer output) throws GeneralSecurityException {
+        Cipher cipher = sealers.get();
+        cipher.init(Cipher.ENCRYPT_MODE, key, parameters(nonce));
+        if (aad != null) cipher.updateAAD(aad);
+
+        return cipher.doFinal(input, output);
+    }
+
+    @Override
+    public int open(final SecretKey key, final byte[] nonce, final byte[] aad, final ByteBuffer input, final ByteBuffer output) throws GeneralSecurityException {
+        Cipher cipher = openers.get();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, parameters(nonce));
+        } catch (InvalidKeyException ex) {
+            //Opening the same data twice is legitimate, but may be refused as a key and nonce reuse
+            cipher = Cipher.getInstance(transformation);
+            cipher.init(Cipher.DECRYPT_MODE, key, parameters(nonce));
+            openers.set(cipher);
+        }
+        if (aad != null) cipher.updateAAD(aad);
+
+        return cipher.doFinal(input, output);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,29 @@
+package es.karmadev.network.security;
+
+import javax.crypto.spec.GCMParameterSpec;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * AES-256 in GCM mode. The default suite, as
+ * it runs on the AES and carry-less multiply
+ * intrinsics of most server CPUs
+ */
+public final class AesGcmCipherSuite extends AeadCipherSuite {
+
+    /**
+     * The suite name
+     */
+    public final static String NAME = "AES-256-GCM";
+
+    /**
+     * Initialize the suite
+     */
+    public AesGcmCipherSuite() {
+        super(NAME, "AES/GCM/NoPadding", "AES", 32);
+    }
+
+    @Override
+    protected AlgorithmParameterSpec parameters(final byte[] nonce) {
+        return new GCMParameterSpec(tagLength() * 8, nonce);
+    }
+}
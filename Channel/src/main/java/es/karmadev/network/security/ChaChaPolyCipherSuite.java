@@ -0,0 +1,28 @@
+package es.karmadev.network.security;
+
+import javax.crypto.spec.IvParameterSpec;
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * ChaCha20 with the Poly1305 authenticator. Faster
+ * than AES-GCM on CPUs without AES instructions
+ */
+public final class ChaChaPolyCipherSuite extends AeadCipherSuite {
+
+    /**
+     * The suite name
+     */
+    public final static String NAME = "CHACHA20-POLY1305";
+
+    /**
+     * Initialize the suite
+     */
+    public ChaChaPolyCipherSuite() {
+        super(NAME, "ChaCha20-Poly1305", "ChaCha20", 32);
+    }
+
+    @Override
+    protected AlgorithmParameterSpec parameters(final byte[] nonce) {
+        return new IvParameterSpec(nonce);
+    }
+}
@@ -0,0 +1,214 @@
+package es.karmadev.network.security;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.*;
+import java.security.cert.Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * The RSA identity of a channel, used to sign the
+ * session keys and to encrypt standalone messages. Generating
+ * an RSA key pair takes hundreds of milliseconds, so identities
+ * are generated in the background, can be persisted to a key file
+ * or loaded from a keystore, and a single identity can be shared by
+ * every channel of the process
+ */
+public final class ChannelIdentity {
+
+    private final static String ALGORITHM = "RSA";
+    private final static int KEY_SIZE = 2048;
+    private final static int FILE_MAGIC = 0x53434944; //SCID
+
+    private final static Executor generator = Executors.newCachedThreadPool(new DefaultThreadFactory("securechanneling-identity", true));
+
+    private final CompletableFuture<KeyPair> ready;
+
+    private ChannelIdentity(final CompletableFuture<KeyPair> ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Get the process wide identity. The identity is
+     * generated in the background the first time it is
+     * requested
+     *
+     * @return the shared identity
+     */
+    public static ChannelIdentity shared() {
+        return Shared.identity;
+    }
+
+    /**
+     * Generate a new identity in the background
+     *
+     * @return the identity
+     */
+    public static ChannelIdentity generate() {
+        return new ChannelIdentity(CompletableFuture.supplyAsync(ChannelIdentity::generateKeys, generator));
+    }
+
+    /**
+     * Create an identity from existing keys
+     *
+     * @param keys the identity keys
+     * @return the identity
+     */
+    public static ChannelIdentity of(final KeyPair keys) {
+        return new ChannelIdentity(CompletableFuture.completedFuture(keys));
+    }
+
+    /**
+     * Load the identity from a key file. If the file
+     * does not exist, a new identity is generated in the
+     * background and written to the file, so the next start
+     * does not need to generate it again
+     *
+     * @param file the key file
+     * @return the identity
+     * @throws IOException if the key file cannot be read
+     */
+    public static ChannelIdentity load(final Path file) throws IOException {
+        if (Files.exists(file)) {
+            return of(readKeys(file));
+        }
+
+        return new ChannelIdentity(CompletableFuture.supplyAsync(() -> {
+            KeyPair keys = generateKeys();
+            try {
+                writeKeys(file, keys);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            return keys;
+        }, generator));
+    }
+
+    /**
+     * Load the identity from a keystore
+     *
+     * @param file the keystore file
+     * @param type the keystore type, for instance PKCS12
+     * @param password the keystore password
+     * @param alias the alias of the identity entry
+     * @return the identity
+     * @throws IOException if the keystore cannot be read
+     * @throws GeneralSecurityException if the entry is missing or is not an RSA key
+     */
+    public static ChannelIdentity fromKeyStore(final Path file, final String type, final char[] password, final String alias) throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance(type);
+        try (InputStream stream = Files.newInputStream(file)) {
+            store.load(stream, password);
+        }
+
+        Key key = store.getKey(alias, password);
+        Certificate certificate = store.getCertificate(alias);
+        if (!(key instanceof PrivateKey) || certificate == null) throw new KeyStoreException("No key pair found for " + alias);
+        if (!ALGORITHM.equals(key.getAlgorithm())) throw new KeyStoreException("Key " + alias + " is not an " + ALGORITHM + " key");
+
+        return of(new KeyPair(certificate.getPublicKey(), (PrivateKey) key));
+    }
+
+    /**
+     * Get the identity readiness
+     *
+     * @return a future completed with the identity
+     * keys once they are available
+     */
+    public CompletableFuture<KeyPair> ready() {
+        return ready;
+    }
+
+    /**
+     * Get if the identity keys are available
+     *
+     * @return if the identity is ready
+     */
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    /**
+     * Get the identity keys, waiting for them
+     * if they are still being generated
+     *
+     * @return the identity keys
+     * @throws IllegalStateException if the keys could not be generated
+     */
+    public KeyPair keys() {
+        try {
+            return ready.join();
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("Failed to create channel identity", ex.getCause());
+        }
+    }
+
+    private static KeyPair generateKeys() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(ALGORITHM);
+            generator.initialize(KEY_SIZE);
+
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static KeyPair readKeys(final Path file) throws IOException {
+        try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (stream.readInt() != FILE_MAGIC) throw new IOException("Not a channel identity file: " + file);
+
+            byte[] publicKey = new byte[stream.readInt()];
+            stream.readFully(publicKey);
+            byte[] privateKey = new byte[stream.readInt()];
+            stream.readFully(privateKey);
+
+            KeyFactory factory = KeyFactory.getInstance(ALGORITHM);
+            return new KeyPair(factory.generatePublic(new X509EncodedKeySpec(publicKey)),
+                    factory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)));
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("Invalid channel identity file: " + file, ex);
+        }
+    }
+
+    private static void writeKeys(final Path file, final KeyPair keys) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        Path temporal = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try {
+                Files.setPosixFilePermissions(temporal, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException ignored) {}
+
+            try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+                byte[] publicKey = keys.getPublic().getEncoded();
+                byte[] privateKey = keys.getPrivate().getEncoded();
+
+                stream.writeInt(FILE_MAGIC);
+                stream.writeInt(publicKey.length);
+                stream.write(publicKey);
+                stream.writeInt(privateKey.length);
+                stream.write(privateKey);
+            }
+
+            Files.move(temporal, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private static class Shared {
+
+        private final static ChannelIdentity identity = generate();
+    }
+}
@@ -0,0 +1,157 @@
+package es.karmadev.network.security;
+
+import es.karmadev.api.network.crypto.CipherSuite;
+import es.karmadev.api.network.crypto.CipherSuites;
+import es.karmadev.network.util.VarInt;
+import es.karmadev.network.wire.Opcode;
+import es.karmadev.network.wire.WireFrame;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Frame encrypted once for many recipients. The payload
+ * is sealed a single time under a random content key, and only
+ * that key is sealed with each recipient {@link PeerSession}, so
+ * sending it to many connections costs one bulk encryption plus
+ * a small key slot per connection.
+ * <p>
+ * The frame payload is the shared part of the envelope
+ * <pre>
+ * nonce | ciphertext and tag
+ * </pre>
+ * and each connection sends it as
+ * <pre>
+ * slot length (varint) | slot | nonce | ciphertext and tag
+ * </pre>
+ * where the slot is the session sealed suite name length (1),
+ * suite name and content key
+ */
+public class EnvelopeFrame extends WireFrame {
+
+    private final byte[] slot;
+
+    private EnvelopeFrame(final Opcode opcode, final int flags, final ByteBuf payload, final byte[] slot) {
+        super(opcode, flags, payload);
+        this.slot = slot;
+    }
+
+    /**
+     * Seal the frame into an envelope
+     *
+     * @param allocator the allocator to take the sealed buffer from
+     * @param suite the suite to seal the payload with
+     * @param frame the frame to seal, which is not released
+     * @return the envelope
+     * @throws GeneralSecurityException if the payload cannot be sealed
+     */
+    public static EnvelopeFrame seal(final ByteBufAllocator allocator, final CipherSuite suite, final WireFrame frame) throws GeneralSecurityException {
+        SecretKey key = suite.generateKey();
+        byte[] nonce = new byte[suite.nonceLength()];
+        suite.randomNonce(nonce);
+
+        ByteBuf payload = frame.content();
+        ByteBuf sealed = allocator.ioBuffer(nonce.length + payload.readableBytes() + suite.tagLength());
+        try {
+            sealed.writeBytes(nonce);
+
+            ByteBuffer output = sealed.nioBuffer(sealed.writerIndex(), sealed.writableBytes());
+            int written = suite.seal(key, nonce, new byte[]{frame.opcode().code()}, payload.nioBuffer(), output);
+            sealed.writerIndex(sealed.writerIndex() + written);
+        } catch (GeneralSecurityException | RuntimeException ex) {
+            sealed.release();
+            throw ex;
+        }
+
+        byte[] name = suite.name().getBytes(StandardCharsets.UTF_8);
+        byte[] material = key.getEncoded();
+        byte[] slot = new byte[1 + name.length + material.length];
+        slot[0] = (byte) name.length;
+        System.arraycopy(name, 0, slot, 1, name.length);
+        System.arraycopy(material, 0, slot, 1 + name.length, material.length);
+
+        return new EnvelopeFrame(frame.opcode(), frame.flags() | FLAG_ENCRYPTED | FLAG_ENVELOPE, sealed, slot);
+    }
+
+    /**
+     * Create the envelope payload for a connection
+     *
+     * @param allocator the allocator to take the buffers from
+     * @param session the connection session
+     * @return the connection payload
+     * @throws GeneralSecurityException if the content key cannot be sealed
+     */
+    public ByteBuf sealFor(final ByteBufAllocator allocator, final PeerSession session) throws GeneralSecurityException {
+        ByteBuf sealedSlot = session.seal(allocator, opcode().code(), Unpooled.wrappedBuffer(slot));
+
+        int length = sealedSlot.readableBytes();
+        ByteBuf header = allocator.ioBuffer(VarInt.size(length));
+        VarInt.write(header, length);
+
+        return allocator.compositeBuffer(3).addComponents(true, header, sealedSlot, content().retainedDuplicate());
+    }
+
+    /**
+     * Open an envelope payload received on
+     * a connection
+     *
+     * @param allocator the allocator to take the opened buffer from
+     * @param session the connection session
+     * @param opcode the frame opcode
+     * @param payload the envelope payload
+     * @return the opened payload
+     * @throws GeneralSecurityException if the envelope has been tampered
+     * with, replayed or cannot be opened
+     */
+    public static ByteBuf open(final ByteBufAllocator allocator, final PeerSession session, final byte opcode, final ByteBuf payload) throws GeneralSecurityException {
+        int length = VarInt.read(payload);
+        if (length > payload.readableBytes()) throw new GeneralSecurityException("Envelope key slot is too long");
+
+        byte[] slot;
+        ByteBuf opened = session.open(allocator, opcode, payload.readSlice(length));
+        try {
+            slot = new byte[opened.readableBytes()];
+            opened.readBytes(slot);
+        } finally {
+            opened.release();
+        }
+
+        int nameLength = (slot.length == 0 ? 0 : slot[0] & 0xFF);
+        if (slot.length < 1 + nameLength) throw new GeneralSecurityException("Envelope key slot is too short");
+
+        String name = new String(slot, 1, nameLength, StandardCharsets.UTF_8);
+        CipherSuite suite = CipherSuites.get(name);
+        if (suite == null) throw new NoSuchAlgorithmException("Unsupported cipher suite " + name);
+
+        byte[] material = new byte[slot.length - 1 - nameLength];
+        System.arraycopy(slot, 1 + nameLength, material, 0, material.length);
+        SecretKey key = suite.createKey(material);
+
+        if (payload.readableBytes() < suite.nonceLength() + suite.tagLength()) throw new GeneralSecurityException("Envelope payload is too short");
+        byte[] nonce = new byte[suite.nonceLength()];
+        payload.readBytes(nonce);
+
+        ByteBuf content = allocator.ioBuffer(payload.readableBytes() - suite.tagLength());
+        try {
+            ByteBuffer output = content.nioBuffer(0, content.capacity());
+            int written = suite.open(key, nonce, new byte[]{opcode}, payload.nioBuffer(), output);
+            content.writerIndex(written);
+
+            return content;
+        } catch (GeneralSecurityException | RuntimeException ex) {
+            content.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public EnvelopeFrame replace(final ByteBuf content) {
+        return new EnvelopeFrame(opcode(), flags(), content, slot);
+    }
+}
@@ -0,0 +1,62 @@
+package es.karmadev.network.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * HMAC-SHA256 based key derivation (RFC 5869)
+ */
+public final class Hkdf {
+
+    private final static String ALGORITHM = "HmacSHA256";
+
+    private Hkdf() {}
+
+    /**
+     * Extract a pseudo random key from the
+     * input key material
+     *
+     * @param salt the salt
+     * @param material the input key material
+     * @return the pseudo random key
+     * @throws GeneralSecurityException if HMAC-SHA256 is not available
+     */
+    public static byte[] extract(final byte[] salt, final byte[] material) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(salt.length == 0 ? new byte[32] : salt, ALGORITHM));
+
+        return mac.doFinal(material);
+    }
+
+    /**
+     * Expand the pseudo random key into
+     * output key material
+     *
+     * @param key the pseudo random key
+     * @param info the context information
+     * @param length the amount of bytes to generate
+     * @return the output key material
+     * @throws GeneralSecurityException if HMAC-SHA256 is not available
+     */
+    public static byte[] expand(final byte[] key, final byte[] info, final int length) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(new SecretKeySpec(key, ALGORITHM));
+
+        byte[] output = new byte[length];
+        byte[] block = new byte[0];
+        int written = 0;
+        for (int counter = 1; written < length; counter++) {
+            mac.update(block);
+            mac.update(info);
+            mac.update((byte) counter);
+            block = mac.doFinal();
+
+            int amount = Math.min(block.length, length - written);
+            System.arraycopy(block, 0, output, written, amount);
+            written += amount;
+        }
+
+        return output;
+    }
+}
@@ -0,0 +1,333 @@
+package es.karmadev.network.security;
+
+import es.karmadev.api.network.crypto.CipherSuite;
+import es.karmadev.api.network.crypto.CipherSuites;
+import es.karmadev.network.util.VarInt;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.AttributeKey;
+
+import javax.crypto.KeyAgreement;
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Symmetric session between the two ends of a
+ * connection. The session key is agreed once through
+ * an ephemeral X25519 exchange, which each side signs with
+ * its identity key; after that every sealed frame only costs
+ * a single {@link CipherSuite} operation. Both sides offer a
+ * suite, and the server offer is the one used, so the offer is
+ * signed along the session key. Each direction has its own key, and
+ * nonces are built from the key epoch and a message counter,
+ * so they never repeat. Keys are ratcheted forward after a
+ * configurable amount of messages or bytes.
+ * <p>
+ * A sealed payload is written as
+ * <pre>
+ * epoch (varint) | counter (8) | ciphertext and tag
+ * </pre>
+ * Sealing and opening must happen on the connection event loop
+ */
+public class PeerSession {
+
+    /**
+     * The connection attribute holding the session
+     */
+    public final static AttributeKey<PeerSession> KEY = AttributeKey.valueOf("securechanneling-session");
+
+    private final static String AGREEMENT = "X25519";
+    private final static String SIGNATURE = "SHA256withRSA";
+    private final static byte[] CLIENT_TO_SERVER = "securechanneling c2s".getBytes(StandardCharsets.UTF_8);
+    private final static byte[] SERVER_TO_CLIENT = "securechanneling s2c".getBytes(StandardCharsets.UTF_8);
+    private final static byte[] ROTATE = "securechanneling rotate".getBytes(StandardCharsets.UTF_8);
+
+    private final boolean server;
+    private final CipherSuite offer;
+    private final KeyPair ephemeral;
+    private final byte[] signature;
+    private final long maxMessages;
+    private final long maxBytes;
+    private final CompletableFuture<PeerSession> ready = new CompletableFuture<>();
+
+    private final byte[] aad = new byte[1];
+
+    private CipherSuite suite;
+    private byte[] sendNonce;
+    private byte[] receiveNonce;
+    private byte[] sendKey;
+    private byte[] receiveKey;
+    private SecretKey sendSpec;
+    private SecretKey receiveSpec;
+    private int sendEpoch;
+    private int receiveEpoch;
+    private long sendCounter;
+    private long receiveCounter;
+    private long sentBytes;
+
+    /**
+     * Initialize the session
+     *
+     * @param server if this is the server end of the connection
+     * @param identity the identity key pair, used to sign the
+     *                 session public key
+     * @param offer the cipher suite offered to the other side
+     * @param maxMessages the amount of messages after which the keys rotate
+     * @param maxBytes the amount of bytes after which the keys rotate
+     * @throws GeneralSecurityException if the session keys cannot be generated
+     */
+    public PeerSession(final boolean server, final KeyPair identity, final CipherSuite offer, final long maxMessages, final long maxBytes) throws GeneralSecurityException {
+        this.server = server;
+        this.offer = offer;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+
+        ephemeral = KeyPairGenerator.getInstance(AGREEMENT).generateKeyPair();
+
+        Signature signer = Signature.getInstance(SIGNATURE);
+        signer.initSign(identity.getPrivate());
+        signer.update(ephemeral.getPublic().getEncoded());
+        signer.update(offer.name().getBytes(StandardCharsets.UTF_8));
+        signature = signer.sign();
+    }
+
+    /**
+     * Get the cipher suite offered to
+     * the other side
+     *
+     * @return the offered suite
+     */
+    public CipherSuite offer() {
+        return offer;
+    }
+
+    /**
+     * Get the cipher suite the session
+     * has agreed on
+     *
+     * @return the agreed suite, or null if the
+     * session is not established yet
+     */
+    public CipherSuite suite() {
+        return suite;
+    }
+
+    /**
+     * Get the session public key, which must be
+     * sent to the other side
+     *
+     * @return the encoded session public key
+     */
+    public byte[] publicKey() {
+        return ephemeral.getPublic().getEncoded();
+    }
+
+    /**
+     * Get the signature of the session public
+     * key made with the identity key
+     *
+     * @return the session key signature
+     */
+    public byte[] signature() {
+        return signature.clone();
+    }
+
+    /**
+     * Get the session readiness
+     *
+     * @return a future completed when the session
+     * has been established
+     */
+    public CompletableFuture<PeerSession> ready() {
+        return ready;
+    }
+
+    /**
+     * Get if the session has been established
+     *
+     * @return if the session is established
+     */
+    public boolean isEstablished() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    /**
+     * Establish the session with the other side
+     * public key
+     *
+     * @param identity the other side identity key
+     * @param peerKey the other side encoded session public key
+     * @param peerOffer the name of the cipher suite offered by the other side
+     * @param peerSignature the other side session key signature
+     * @throws GeneralSecurityException if the signature is not valid, the
+     * server suite is unknown or the keys cannot be agreed
+     */
+    public void establish(final PublicKey identity, final byte[] peerKey, final String peerOffer, final byte[] peerSignature) throws GeneralSecurityException {
+        if (ready.isDone()) return;
+
+        Signature verifier = Signature.getInstance(SIGNATURE);
+        verifier.initVerify(identity);
+        verifier.update(peerKey);
+        verifier.update(peerOffer.getBytes(StandardCharsets.UTF_8));
+        if (!verifier.verify(peerSignature)) throw new SignatureException("Invalid session key signature");
+
+        CipherSuite agreed = (server ? offer : CipherSuites.get(peerOffer));
+        if (agreed == null) throw new NoSuchAlgorithmException("Unsupported cipher suite " + peerOffer);
+
+        PublicKey peerPublic = KeyFactory.getInstance(AGREEMENT).generatePublic(new X509EncodedKeySpec(peerKey));
+        KeyAgreement agreement = KeyAgreement.getInstance(AGREEMENT);
+        agreement.init(ephemeral.getPrivate());
+        agreement.doPhase(peerPublic, true);
+
+        byte[] ownKey = publicKey();
+        byte[] clientKey = (server ? peerKey : ownKey);
+        byte[] serverKey = (server ? ownKey : peerKey);
+        byte[] salt = new byte[clientKey.length + serverKey.length];
+        System.arraycopy(clientKey, 0, salt, 0, clientKey.length);
+        System.arraycopy(serverKey, 0, salt, clientKey.length, serverKey.length);
+
+        byte[] secret = Hkdf.extract(salt, agreement.generateSecret());
+        byte[] clientToServer = Hkdf.expand(secret, CLIENT_TO_SERVER, agreed.keyLength());
+        byte[] serverToClient = Hkdf.expand(secret, SERVER_TO_CLIENT, agreed.keyLength());
+
+        suite = agreed;
+        sendNonce = new byte[agreed.nonceLength()];
+        receiveNonce = new byte[agreed.nonceLength()];
+        sendKey = (server ? serverToClient : clientToServer);
+        receiveKey = (server ? clientToServer : serverToClient);
+        sendSpec = agreed.createKey(sendKey);
+        receiveSpec = agreed.createKey(receiveKey);
+
+        ready.complete(this);
+    }
+
+    /**
+     * Mark the session as failed
+     *
+     * @param error the failure reason
+     */
+    public void fail(final Throwable error) {
+        ready.completeExceptionally(error);
+    }
+
+    /**
+     * Seal the payload
+     *
+     * @param allocator the allocator to take the sealed buffer from
+     * @param opcode the frame opcode, which is authenticated
+     *               along the payload
+     * @param payload the payload to seal
+     * @return the sealed payload
+     * @throws GeneralSecurityException if the payload cannot be sealed
+     */
+    public ByteBuf seal(final ByteBufAllocator allocator, final byte opcode, final ByteBuf payload) throws GeneralSecurityException {
+        if (!isEstablished()) throw new IllegalStateException("Session has not been established");
+        if (sendCounter >= maxMessages || sentBytes >= maxBytes) {
+            sendKey = ratchet(sendKey, ++sendEpoch);
+            sendSpec = suite.createKey(sendKey);
+            sendCounter = 0;
+            sentBytes = 0;
+        }
+
+        long counter = sendCounter++;
+        int length = payload.readableBytes();
+        sentBytes += length;
+
+        ByteBuf sealed = allocator.ioBuffer(VarInt.size(sendEpoch) + 8 + length + suite.tagLength());
+        try {
+            VarInt.write(sealed, sendEpoch);
+            sealed.writeLong(counter);
+
+            nonce(sendNonce, sendEpoch, counter);
+            aad[0] = opcode;
+
+            ByteBuffer output = sealed.nioBuffer(sealed.writerIndex(), sealed.writableBytes());
+            int written = suite.seal(sendSpec, sendNonce, aad, payload.nioBuffer(), output);
+            sealed.writerIndex(sealed.writerIndex() + written);
+
+            return sealed;
+        } catch (GeneralSecurityException | RuntimeException ex) {
+            sealed.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Open the sealed payload
+     *
+     * @param allocator the allocator to take the opened buffer from
+     * @param opcode the frame opcode
+     * @param sealed the sealed payload
+     * @return the opened payload
+     * @throws GeneralSecurityException if the payload has been tampered with,
+     * replayed or cannot be opened
+     */
+    public ByteBuf open(final ByteBufAllocator allocator, final byte opcode, final ByteBuf sealed) throws GeneralSecurityException {
+        if (!isEstablished()) throw new IllegalStateException("Session has not been established");
+
+        int epoch = VarInt.read(sealed);
+        long counter = sealed.readLong();
+
+        //Kept apart until the tag is verified, so a forged frame cannot move the receive state
+        byte[] key = receiveKey;
+        SecretKey spec = receiveSpec;
+        long expected = receiveCounter;
+        if (epoch == receiveEpoch + 1) {
+            key = ratchet(receiveKey, epoch);
+            spec = suite.createKey(key);
+            expected = 0;
+        } else if (epoch != receiveEpoch) {
+            throw new GeneralSecurityException("Unexpected session epoch " + epoch + ", expected " + receiveEpoch);
+        }
+
+        if (counter < expected) throw new GeneralSecurityException("Replayed session message " + counter);
+
+        int length = sealed.readableBytes() - suite.tagLength();
+        if (length < 0) throw new GeneralSecurityException("Sealed payload is too short");
+
+        ByteBuf opened = allocator.ioBuffer(length);
+        try {
+            nonce(receiveNonce, epoch, counter);
+            aad[0] = opcode;
+
+            ByteBuffer output = opened.nioBuffer(0, opened.capacity());
+            int written = suite.open(spec, receiveNonce, aad, sealed.nioBuffer(), output);
+            opened.writerIndex(written);
+
+            receiveKey = key;
+            receiveSpec = spec;
+            receiveEpoch = epoch;
+            receiveCounter = counter + 1;
+
+            return opened;
+        } catch (GeneralSecurityException | RuntimeException ex) {
+            opened.release();
+            throw ex;
+        }
+    }
+
+    private static void nonce(final byte[] nonce, final int epoch, final long counter) {
+        nonce[0] = (byte) (epoch >>> 24);
+        nonce[1] = (byte) (epoch >>> 16);
+        nonce[2] = (byte) (epoch >>> 8);
+        nonce[3] = (byte) epoch;
+        for (int i = 0; i < 8; i++) {
+            nonce[4 + i] = (byte) (counter >>> (56 - i * 8));
+        }
+    }
+
+    private byte[] ratchet(final byte[] key, final int epoch) throws GeneralSecurityException {
+        byte[] info = new byte[ROTATE.length + 4];
+        System.arraycopy(ROTATE, 0, info, 0, ROTATE.length);
+        info[ROTATE.length] = (byte) (epoch >>> 24);
+        info[ROTATE.length + 1] = (byte) (epoch >>> 16);
+        info[ROTATE.length + 2] = (byte) (epoch >>> 8);
+        info[ROTATE.length + 3] = (byte) epoch;
+
+        return Hkdf.expand(key, info, suite.keyLength());
+    }
+}
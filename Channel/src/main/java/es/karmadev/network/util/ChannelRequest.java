@@ -1,25 +1,23 @@
 package es.karmadev.network.util;
 
-import es.karmadev.api.network.channel.handler.InputChannel;
-import es.karmadev.api.network.message.ReadOnlyMessage;
 import es.karmadev.api.network.message.WritableMessage;
 import io.netty.channel.Channel;
-
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Future;
+import io.netty.channel.ChannelPromise;
 
 public class ChannelRequest {
 
     private final Channel channel;
     private final WritableMessage message;
-    private final InputChannel inputListener;
-    private final CompletableFuture<ReadOnlyMessage> future;
+    private final ChannelPromise promise;
+
+    public ChannelRequest(final Channel channel, final WritableMessage message) {
+        this(channel, message, null);
+    }
 
-    public ChannelRequest(final Channel channel, final WritableMessage message, final InputChannel inputListener, final CompletableFuture<ReadOnlyMessage> future) {
+    public ChannelRequest(final Channel channel, final WritableMessage message, final ChannelPromise promise) {
         this.channel = channel;
         this.message = message;
-        this.inputListener = inputListener;
-        this.future = future;
+        this.promise = promise;
     }
 
     public Channel getChannel() {
@@ -30,11 +28,13 @@ public class ChannelRequest {
         return message;
     }
 
-    public InputChannel getListener() {
-        return inputListener;
-    }
-
-    public CompletableFuture<ReadOnlyMessage> getFuture() {
-        return future;
+    /**
+     * Get the promise completed once the
+     * request has been written
+     *
+     * @return the request promise, or null
+     */
+    public ChannelPromise getPromise() {
+        return promise;
     }
 }
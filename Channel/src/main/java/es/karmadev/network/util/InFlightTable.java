@@ -0,0 +1,182 @@
+package es.karmadev.network.util;
+
+import es.karmadev.api.network.message.ReadOnlyMessage;
+import es.karmadev.network.message.MessageConstructor;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.collection.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Table of the requests waiting for a response, keyed
+ * by message ID. Responses are matched in constant time, and
+ * requests nobody answers are failed by a timer instead of
+ * being kept forever. The table is split in lock stripes, so
+ * writers and the event loops rarely contend
+ */
+public final class InFlightTable {
+
+    private final static int STRIPES = 16;
+
+    private final Timer timer;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Initialize the table
+     *
+     * @param timer the timer used to expire requests
+     */
+    public InFlightTable(final Timer timer) {
+        this.timer = timer;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Register a request. Registering an ID which
+     * is already waiting returns the existing request
+     * future
+     *
+     * @param id the request message ID
+     * @param timeout the time to wait for the response, or
+     *                zero to wait forever
+     * @param unit the timeout unit
+     * @return the response future
+     */
+    public CompletableFuture<ReadOnlyMessage> register(final int id, final long timeout, final TimeUnit unit) {
+        Stripe stripe = stripe(id);
+
+        Request request;
+        synchronized (stripe) {
+            Request existing = stripe.requests.get(id);
+            if (existing != null) return existing.future;
+
+            request = new Request(id);
+            stripe.requests.put(id, request);
+        }
+        size.incrementAndGet();
+
+        if (timeout > 0) {
+            request.timeout = timer.newTimeout((task) -> request.future.completeExceptionally(
+                    new TimeoutException("No response to message " + id + " after " + unit.toMillis(timeout) + "ms")), timeout, unit);
+        }
+        request.future.whenComplete((response, error) -> remove(request));
+
+        return request.future;
+    }
+
+    /**
+     * Complete the request the message answers
+     *
+     * @param message the received message
+     * @return if the message answered a request
+     */
+    public boolean complete(final ReadOnlyMessage message) {
+        Request request = get(message.id());
+        if (request == null) return false;
+
+        //The received message is only readable during its dispatch
+        return request.future.complete(MessageConstructor.detach(message));
+    }
+
+    /**
+     * Get if a request is still waiting
+     * for its response
+     *
+     * @param id the request message ID
+     * @return if the request is waiting
+     */
+    public boolean isWaiting(final int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Fail a request
+     *
+     * @param id the request message ID
+     * @param error the failure reason
+     */
+    public void fail(final int id, final Throwable error) {
+        Request request = get(id);
+        if (request != null) request.future.completeExceptionally(error);
+    }
+
+    /**
+     * Fail every request
+     *
+     * @param error the failure reason
+     */
+    public void failAll(final Throwable error) {
+        List<Request> requests = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                requests.addAll(stripe.requests.values());
+            }
+        }
+
+        for (Request request : requests) {
+            request.future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Get the amount of requests waiting
+     * for a response
+     *
+     * @return the in-flight request count
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private Request get(final int id) {
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            return stripe.requests.get(id);
+        }
+    }
+
+    private void remove(final Request request) {
+        Stripe stripe = stripe(request.id);
+
+        boolean removed = false;
+        synchronized (stripe) {
+            if (stripe.requests.get(request.id) == request) {
+                stripe.requests.remove(request.id);
+                removed = true;
+            }
+        }
+
+        if (removed) size.decrementAndGet();
+        if (request.timeout != null) request.timeout.cancel();
+    }
+
+    private Stripe stripe(final int id) {
+        int hash = id ^ (id >>> 16);
+        return stripes[hash & (STRIPES - 1)];
+    }
+
+    private static class Stripe {
+
+        private final IntObjectHashMap<Request> requests = new IntObjectHashMap<>();
+    }
+
+    private static class Request {
+
+        private final int id;
+        private final CompletableFuture<ReadOnlyMessage> future = new CompletableFuture<>();
+        private volatile Timeout timeout;
+
+        private Request(final int id) {
+            this.id = id;
+        }
+    }
+}
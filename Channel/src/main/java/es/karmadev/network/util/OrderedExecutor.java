@@ -0,0 +1,198 @@
+package es.karmadev.network.util;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Executor which runs the tasks of the same key in
+ * the order they were submitted, while tasks of different
+ * keys run in parallel. Keys are spread over a fixed amount
+ * of lanes, each lane running on the backing executor one task
+ * after another. A busy lane gives its thread back after a batch
+ * of tasks, so it cannot starve the others.
+ * <p>
+ * The executor is full once a lane, or all of them together, hold
+ * more tasks than their limit. Tasks are still taken while full, so
+ * submitters are expected to stop producing them until the executor
+ * {@link #whenDrained(Object, Runnable) drains} under half the limits
+ */
+public final class OrderedExecutor {
+
+    private final static InternalLogger logger = InternalLoggerFactory.getInstance(OrderedExecutor.class);
+    private final static int BATCH = 64;
+
+    private final Executor executor;
+    private final Lane[] lanes;
+    private final IntSupplier laneLimit;
+    private final IntSupplier limit;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Initialize the executor
+     *
+     * @param executor the executor running the lanes
+     * @param lanes the amount of lanes, which is the max
+     *              amount of keys running at the same time
+     * @param laneLimit the max amount of tasks a lane
+     *                  holds before the executor is full
+     * @param limit the max amount of tasks all the lanes
+     *              hold before the executor is full
+     */
+    public OrderedExecutor(final Executor executor, final int lanes, final IntSupplier laneLimit, final IntSupplier limit) {
+        if (lanes <= 0) throw new IllegalArgumentException("Lane count must be positive");
+
+        this.executor = executor;
+        this.laneLimit = laneLimit;
+        this.limit = limit;
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Get the executor running the lanes
+     *
+     * @return the backing executor
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Run the task after every task previously
+     * submitted with the same key
+     *
+     * @param key the task key
+     * @param task the task to run
+     * @return false if the executor is full after
+     * taking the task
+     */
+    public boolean execute(final Object key, final Runnable task) {
+        Lane lane = laneOf(key);
+
+        int depth = queued.incrementAndGet();
+        if (depth > peak.get()) peak.accumulateAndGet(depth, Math::max);
+
+        int laneDepth = lane.add(task);
+        return laneDepth <= laneLimit.getAsInt() && depth <= limit.getAsInt();
+    }
+
+    /**
+     * Run an action once the lane of the key, and all
+     * the lanes together, hold at most half of their
+     * limits. The action runs on the thread which drained
+     * the executor, so it should be short
+     *
+     * @param key the key of the full lane
+     * @param action the action to run
+     */
+    public void whenDrained(final Object key, final Runnable action) {
+        waiters.add(new Waiter(laneOf(key), action));
+        wake(); //The lane may have drained before the action was added
+    }
+
+    /**
+     * Get the amount of tasks waiting
+     * or running
+     *
+     * @return the queued task count
+     */
+    public int queued() {
+        return queued.get();
+    }
+
+    /**
+     * Get the highest amount of tasks which
+     * have been queued at the same time
+     *
+     * @return the peak queued task count
+     */
+    public int peak() {
+        return peak.get();
+    }
+
+    private Lane laneOf(final Object key) {
+        int hash = (key == null ? 0 : key.hashCode());
+        hash ^= (hash >>> 16);
+
+        return lanes[(hash & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    private void wake() {
+        for (Waiter waiter : waiters) {
+            if (waiter.lane.pending.get() > laneLimit.getAsInt() / 2 || queued.get() > limit.getAsInt() / 2) continue;
+            if (waiters.remove(waiter)) waiter.action.run(); //Only the thread which removes it runs it
+        }
+    }
+
+    private class Lane implements Runnable {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private int add(final Runnable task) {
+            tasks.add(task);
+
+            int depth = pending.incrementAndGet();
+            if (depth == 1) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException ex) {
+                    //The executor is shutting down, so drain the lane here instead of losing it
+                    run();
+                }
+            }
+
+            return depth;
+        }
+
+        @Override
+        public void run() {
+            int ran = 0;
+            while (true) {
+                Runnable task = tasks.poll();
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    //Tasks report their own failures, this only keeps the lane going
+                    logger.warn("Unhandled failure of an ordered task", ex);
+                } finally {
+                    queued.decrementAndGet();
+                }
+
+                int left = pending.decrementAndGet();
+                if (!waiters.isEmpty()) wake();
+                if (left == 0) return;
+                if (++ran >= BATCH) {
+                    try {
+                        executor.execute(this);
+                        return;
+                    } catch (RejectedExecutionException ex) {
+                        ran = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Waiter {
+
+        private final Lane lane;
+        private final Runnable action;
+
+        private Waiter(final Lane lane, final Runnable action) {
+            this.lane = lane;
+            this.action = action;
+        }
+    }
+}
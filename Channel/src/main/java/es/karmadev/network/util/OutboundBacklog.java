@@ -0,0 +1,146 @@
+package es.karmadev.network.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Bytes of the messages written to a connection which have not
+ * reached the network yet, either waiting for the event loop or in
+ * the connection outbound buffer. The backlog stops being writable once
+ * it goes over its limit, and is writable again once it drains under
+ * half of it, so writers are not woken up for every message sent.
+ * <p>
+ * Reserving and releasing is lock free; the lock is only taken
+ * when the backlog changes its writability, or to wait for it
+ */
+public final class OutboundBacklog {
+
+    private final AtomicLong pending = new AtomicLong();
+    private final LongSupplier limit;
+    private final Consumer<Boolean> onChange;
+
+    private volatile boolean writable = true;
+    private volatile boolean closed;
+
+    /**
+     * Initialize the backlog
+     *
+     * @param limit the max amount of bytes the backlog
+     *              holds while being writable
+     * @param onChange the action to run when the backlog
+     *                 writability changes
+     */
+    public OutboundBacklog(final LongSupplier limit, final Consumer<Boolean> onChange) {
+        this.limit = limit;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Get if the backlog can take
+     * more writes
+     *
+     * @return if the backlog is writable
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Get the amount of bytes which
+     * have not reached the network
+     *
+     * @return the pending bytes
+     */
+    public long pending() {
+        return pending.get();
+    }
+
+    /**
+     * Count a written message
+     *
+     * @param bytes the message size
+     */
+    public void reserve(final long bytes) {
+        if (pending.addAndGet(bytes) > limit.getAsLong() && writable) update();
+    }
+
+    /**
+     * Discount a message which has reached
+     * the network, or has been dropped
+     *
+     * @param bytes the message size
+     */
+    public void release(final long bytes) {
+        if (pending.addAndGet(-bytes) <= limit.getAsLong() / 2 && !writable) update();
+    }
+
+    /**
+     * Wait for the backlog to be writable
+     *
+     * @param timeout the max time to wait, or zero
+     *                to wait until it is writable
+     * @param unit the timeout unit
+     * @return if the backlog is writable, false if the time
+     * has passed or the backlog has been closed
+     * @throws InterruptedException if the thread is interrupted
+     * while waiting
+     */
+    public boolean await(final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (writable) return true;
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (!writable && !closed) {
+                if (timeout == 0) {
+                    wait();
+                    continue;
+                }
+
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return false;
+
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+        }
+
+        return writable;
+    }
+
+    /**
+     * Get if the connection of the
+     * backlog has been closed
+     *
+     * @return if the backlog is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close the backlog, waking up
+     * every waiting writer
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    private synchronized void update() {
+        long current = pending.get();
+        long max = limit.getAsLong();
+
+        if (writable && current > max) {
+            writable = false;
+        } else if (!writable && current <= max / 2) {
+            writable = true;
+            notifyAll();
+        } else {
+            return; //Another thread got here first
+        }
+
+        //Under the lock, so listeners see the changes in order
+        onChange.accept(writable);
+    }
+}
@@ -0,0 +1,88 @@
+package es.karmadev.network.util;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the peers connected to a channel, keyed
+ * by the ID each peer sends on its handshake. Peers are
+ * registered once their handshake is received and removed
+ * when they disconnect, so a message for a single peer is
+ * only written to its connection
+ */
+public final class PeerRegistry {
+
+    private final static AttributeKey<String> PEER_ID = AttributeKey.valueOf("securechanneling-peer");
+
+    private final ConcurrentMap<String, Channel> peers = new ConcurrentHashMap<>();
+
+    /**
+     * Register a peer. If another connection was
+     * registered with the same ID, it is replaced
+     *
+     * @param id the peer ID
+     * @param connection the peer connection
+     */
+    public void register(final String id, final Channel connection) {
+        String previous = connection.attr(PEER_ID).getAndSet(id);
+        if (previous != null && !previous.equals(id)) peers.remove(previous, connection);
+
+        peers.put(id, connection);
+    }
+
+    /**
+     * Remove a peer connection
+     *
+     * @param connection the peer connection
+     */
+    public void unregister(final Channel connection) {
+        String id = connection.attr(PEER_ID).getAndSet(null);
+        if (id != null) peers.remove(id, connection);
+    }
+
+    /**
+     * Get the connection of a peer
+     *
+     * @param id the peer ID
+     * @return the peer connection, or null if
+     * there is no peer with that ID
+     */
+    public Channel get(final String id) {
+        return peers.get(id);
+    }
+
+    /**
+     * Get the ID of the peer of a
+     * connection
+     *
+     * @param connection the connection
+     * @return the peer ID, or null if the peer has
+     * not sent its handshake yet
+     */
+    public String idOf(final Channel connection) {
+        return connection.attr(PEER_ID).get();
+    }
+
+    /**
+     * Get the IDs of the registered peers
+     *
+     * @return the peer IDs
+     */
+    public Set<String> ids() {
+        return Collections.unmodifiableSet(peers.keySet());
+    }
+
+    /**
+     * Get the amount of registered peers
+     *
+     * @return the peer count
+     */
+    public int size() {
+        return peers.size();
+    }
+}
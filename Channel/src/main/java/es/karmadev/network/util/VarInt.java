@@ -0,0 +1,163 @@
+package es.karmadev.network.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+/**
+ * Variable length integer utilities. Values are
+ * written seven bits at a time, least significant
+ * group first, with the high bit of each byte marking
+ * that another byte follows
+ */
+public final class VarInt {
+
+    private VarInt() {}
+
+    /**
+     * Get the amount of bytes required to
+     * write the value
+     *
+     * @param value the value
+     * @return the value size
+     */
+    public static int size(final int value) {
+        if ((value & (~0 << 7)) == 0) return 1;
+        if ((value & (~0 << 14)) == 0) return 2;
+        if ((value & (~0 << 21)) == 0) return 3;
+        if ((value & (~0 << 28)) == 0) return 4;
+
+        return 5;
+    }
+
+    /**
+     * Get the amount of bytes required to
+     * write the value
+     *
+     * @param value the value
+     * @return the value size
+     */
+    public static int size(final long value) {
+        int size = 1;
+        long remaining = value >>> 7;
+        while (remaining != 0) {
+            remaining >>>= 7;
+            size++;
+        }
+
+        return size;
+    }
+
+    /**
+     * Write an unsigned variable length integer
+     *
+     * @param buffer the buffer to write to
+     * @param value the value
+     */
+    public static void write(final ByteBuf buffer, final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            buffer.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+
+        buffer.writeByte(remaining);
+    }
+
+    /**
+     * Write an unsigned variable length long
+     *
+     * @param buffer the buffer to write to
+     * @param value the value
+     */
+    public static void write(final ByteBuf buffer, final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+
+        buffer.writeByte((int) remaining);
+    }
+
+    /**
+     * Read an unsigned variable length integer
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     * @throws CorruptedFrameException if the value is longer than
+     * an integer
+     */
+    public static int read(final ByteBuf buffer) throws CorruptedFrameException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.readByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new CorruptedFrameException("Malformed variable length integer");
+    }
+
+    /**
+     * Read an unsigned variable length long
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     * @throws CorruptedFrameException if the value is longer than
+     * a long
+     */
+    public static long readLong(final ByteBuf buffer) throws CorruptedFrameException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.readByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new CorruptedFrameException("Malformed variable length long");
+    }
+
+    /**
+     * Zig-zag encode the value, so small negative
+     * numbers stay small when written as variable
+     * length integers
+     *
+     * @param value the value
+     * @return the encoded value
+     */
+    public static int zigZag(final int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Zig-zag encode the value
+     *
+     * @param value the value
+     * @return the encoded value
+     */
+    public static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Decode a zig-zag encoded value
+     *
+     * @param value the encoded value
+     * @return the value
+     */
+    public static int unZigZag(final int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Decode a zig-zag encoded value
+     *
+     * @param value the encoded value
+     * @return the value
+     */
+    public static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,62 @@
+package es.karmadev.network.wire;
+
+/**
+ * Wire frame operation code. Tells the
+ * receiver how the frame payload must be
+ * interpreted
+ */
+public enum Opcode {
+    /**
+     * The payload is an encoded message
+     */
+    MESSAGE(0x01),
+    /**
+     * The payload is an encrypted network frame
+     */
+    SECURE_FRAME(0x02),
+    /**
+     * The payload is the ID (4) of a message
+     * the sender is no longer waiting for
+     */
+    CANCEL(0x03),
+    /**
+     * The payload is a part of a streamed message,
+     * written as message ID (4) | position (varint) |
+     * max position (varint) | data
+     */
+    CHUNK(0x04);
+
+    private final static Opcode[] BY_CODE = new Opcode[256];
+
+    static {
+        for (Opcode opcode : values()) {
+            BY_CODE[opcode.code & 0xFF] = opcode;
+        }
+    }
+
+    private final byte code;
+
+    Opcode(final int code) {
+        this.code = (byte) code;
+    }
+
+    /**
+     * Get the opcode wire value
+     *
+     * @return the opcode value
+     */
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * Get an opcode from its wire value
+     *
+     * @param code the wire value
+     * @return the opcode, or null if the value
+     * is unknown
+     */
+    public static Opcode of(final byte code) {
+        return BY_CODE[code & 0xFF];
+    }
+}
@@ -0,0 +1,146 @@
+package es.karmadev.network.wire;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * A single frame as sent over the wire. Each
+ * frame is written as
+ * <pre>
+ * length (4) | opcode (1) | flags (1) | payload (length)
+ * </pre>
+ * The frame owns its payload buffer, so it must
+ * be released once consumed
+ */
+public class WireFrame extends DefaultByteBufHolder {
+
+    /**
+     * The frame header length
+     */
+    public final static int HEADER_LENGTH = 6;
+
+    /**
+     * The frame payload is sealed with the
+     * connection session
+     */
+    public final static int FLAG_ENCRYPTED = 0x01;
+
+    /**
+     * The frame payload is a multi-recipient
+     * envelope, whose content key is sealed with
+     * the connection session
+     */
+    public final static int FLAG_ENVELOPE = 0x02;
+
+    /**
+     * The frame payload is deflate
+     * compressed
+     */
+    public final static int FLAG_COMPRESSED = 0x04;
+
+    private final Opcode opcode;
+    private final byte flags;
+    private final long receivedAt;
+
+    /**
+     * Initialize the frame
+     *
+     * @param opcode the frame opcode
+     * @param flags the frame flags
+     * @param payload the frame payload
+     */
+    public WireFrame(final Opcode opcode, final int flags, final ByteBuf payload) {
+        this(opcode, flags, payload, System.nanoTime());
+    }
+
+    /**
+     * Initialize the frame
+     *
+     * @param opcode the frame opcode
+     * @param flags the frame flags
+     * @param payload the frame payload
+     * @param receivedAt the moment the frame was read, in
+     *                   {@link System#nanoTime()} time
+     */
+    public WireFrame(final Opcode opcode, final int flags, final ByteBuf payload, final long receivedAt) {
+        super(payload);
+        this.opcode = opcode;
+        this.flags = (byte) flags;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * Get the frame opcode
+     *
+     * @return the opcode
+     */
+    public Opcode opcode() {
+        return opcode;
+    }
+
+    /**
+     * Get the frame flags
+     *
+     * @return the flags
+     */
+    public byte flags() {
+        return flags;
+    }
+
+    /**
+     * Get the moment the frame was read from
+     * the connection. Message deadlines count from
+     * this moment, so the time a frame waits behind
+     * others is not lost
+     *
+     * @return the moment the frame was read, in
+     * {@link System#nanoTime()} time
+     */
+    public long receivedAt() {
+        return receivedAt;
+    }
+
+    /**
+     * Get if the frame has the flag
+     *
+     * @param flag the flag
+     * @return if the flag is set
+     */
+    public boolean hasFlag(final int flag) {
+        return (flags & flag) != 0;
+    }
+
+    @Override
+    public WireFrame replace(final ByteBuf content) {
+        return new WireFrame(opcode, flags, content, receivedAt);
+    }
+
+    @Override
+    public WireFrame retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public WireFrame retain(final int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public WireFrame touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public WireFrame touch(final Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "WireFrame[" + opcode + ", flags=" + flags + ", length=" + content().readableBytes() + "]";
+    }
+}